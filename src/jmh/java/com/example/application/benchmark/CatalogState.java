@@ -0,0 +1,127 @@
+package com.example.application.benchmark;
+
+import com.example.application.Application;
+import com.example.application.data.entity.Category;
+import com.example.application.data.entity.Product;
+import com.example.application.data.service.CategoryService;
+import com.example.application.data.service.ProductService;
+import com.example.application.data.service.ThumbnailService;
+import com.example.application.data.service.ThumbnailService.Thumbnails;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application without its web layer, running against a fresh in-memory H2
+ * database seeded with {@link #catalogSize} products. Shared by all benchmark
+ * threads.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    private static final int CATEGORIES = 20;
+    private static final int CHUNK_SIZE = 1000;
+
+    @Param({ "10000" })
+    public int catalogSize;
+
+    /**
+     * Every how many products one has a thumbnail.
+     */
+    @Param({ "10" })
+    public int thumbnailEvery;
+
+    ConfigurableApplicationContext context;
+    ProductService productService;
+    List<Long> productIds;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // Vaadin needs a servlet context, the benchmarks call the services directly.
+        // Devtools would shut the database down after the pool has been closed.
+        context = new SpringApplicationBuilder(Application.class).web(WebApplicationType.NONE)
+                .properties("spring.autoconfigure.exclude=com.vaadin.flow.spring.SpringBootAutoConfiguration,"
+                        + "org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run();
+        productService = context.getBean(ProductService.class);
+        seed(context.getBean(CategoryService.class), context.getBean(ThumbnailService.class));
+        productIds = new ArrayList<>();
+        productService.forEachRow(null, CHUNK_SIZE, row -> productIds.add(row.getId()));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private void seed(CategoryService categoryService, ThumbnailService thumbnailService) throws IOException {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            Category category = new Category();
+            category.setNameCategory("Category " + i);
+            category.setSlugProduct("category-" + i);
+            categories.add(categoryService.update(category));
+        }
+        Thumbnails thumbnails = thumbnailService.createThumbnails(new ByteArrayInputStream(image()));
+        List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < catalogSize; i++) {
+            Product product = new Product();
+            product.setNameProduct("Product " + i);
+            product.setCategory(categoryService.getReference(categories.get(i % CATEGORIES).getId()));
+            product.setPriceProduct(BigDecimal.valueOf(i % 100000, 2));
+            product.setSoldProduct((long) (i % 500));
+            product.setMadeOn(LocalDate.of(2020, 1, 1).plusDays(i % 1000));
+            if (i % thumbnailEvery == 0) {
+                product.setThumbnailProduct(thumbnails.getLarge());
+                product.setThumbnailProductSmall(thumbnails.getSmall());
+            }
+            chunk.add(product);
+            if (chunk.size() == CHUNK_SIZE) {
+                productService.createAll(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            productService.createAll(chunk);
+        }
+    }
+
+    /**
+     * Returns a photo-sized JPEG that does not compress to almost nothing.
+     */
+    private static byte[] image() throws IOException {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, 800, 600, Color.BLUE));
+        graphics.fillRect(0, 0, 800, 600);
+        for (int i = 0; i < 200; i++) {
+            graphics.setColor(new Color(i * 7919 % 0xffffff));
+            graphics.fillOval(i * 37 % 800, i * 53 % 600, 40, 40);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.application.benchmark;
+
+import com.example.application.data.entity.Product;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads and updates single products picked at random, as the product editor
+ * does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductEntityBenchmark {
+
+    private final Random random = new Random(42);
+
+    @Benchmark
+    public Optional<Product> get(CatalogState catalog) {
+        return catalog.productService.get(randomId(catalog));
+    }
+
+    @Benchmark
+    public Product update(CatalogState catalog) {
+        Product product = catalog.productService.get(randomId(catalog)).orElseThrow();
+        product.setSoldProduct(product.getSoldProduct() + 1);
+        return catalog.productService.update(product);
+    }
+
+    private Long randomId(CatalogState catalog) {
+        return catalog.productIds.get(random.nextInt(catalog.productIds.size()));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.application.benchmark;
+
+import com.example.application.data.entity.Product;
+import com.example.application.data.service.ProductRow;
+import com.example.application.data.service.ProductSpecifications;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Fetches one page of products the ways the product grid can: as entities with
+ * a total count, as a slice of rows and as rows following a keyset cursor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductListBenchmark {
+
+    @Param({ "50", "200" })
+    public int pageSize;
+
+    @Param({ "0", "5000" })
+    public int offset;
+
+    /**
+     * Whether the page is filtered, which bypasses the service cache.
+     */
+    @Param({ "false", "true" })
+    public boolean filtered;
+
+    private Specification<Product> filter;
+    private Pageable page;
+    private ProductRow after;
+
+    @Setup(Level.Trial)
+    public void prepare(CatalogState catalog) {
+        filter = filtered ? ProductSpecifications.priceBetween(BigDecimal.ZERO, null) : null;
+        page = PageRequest.of(offset / pageSize, pageSize);
+        if (offset > 0) {
+            List<ProductRow> skipped = catalog.productService.listRowsAfter(null, Sort.unsorted(), offset, filter);
+            after = skipped.get(skipped.size() - 1);
+        }
+    }
+
+    @Benchmark
+    public Page<Product> list(CatalogState catalog) {
+        return catalog.productService.list(page, filter);
+    }
+
+    @Benchmark
+    public Slice<ProductRow> listRows(CatalogState catalog) {
+        return catalog.productService.listRows(page, filter);
+    }
+
+    @Benchmark
+    public List<ProductRow> listRowsAfter(CatalogState catalog) {
+        return catalog.productService.listRowsAfter(after, Sort.unsorted(), pageSize, filter);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.application.benchmark;
+
+import com.example.application.data.service.ProductRow;
+import com.example.application.web.ThumbnailController;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Renders the thumbnail column for a page of products that all have a
+ * thumbnail.
+ * <p>
+ * The grid sends a URL per row and the browser then fetches the small images,
+ * see {@link ThumbnailController}. The data URI variant is the former approach
+ * of inlining every large image as base64 into the grid data, kept for
+ * comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThumbnailRenderingBenchmark {
+
+    @Param({ "50" })
+    public int pageSize;
+
+    private List<ProductRow> rows;
+
+    @Setup(Level.Trial)
+    public void prepare(CatalogState catalog) {
+        rows = new ArrayList<>();
+        catalog.productService.forEachRow(null, pageSize, row -> {
+            if (row.hasThumbnail() && rows.size() < pageSize) {
+                rows.add(row);
+            }
+        });
+    }
+
+    @Benchmark
+    public void thumbnailUrls(Blackhole blackhole) {
+        for (ProductRow row : rows) {
+            blackhole.consume(ThumbnailController.productThumbnailUrl(row));
+        }
+    }
+
+    @Benchmark
+    public void thumbnailRequests(CatalogState catalog, Blackhole blackhole) {
+        for (ProductRow row : rows) {
+            blackhole.consume(catalog.productService.getSmallThumbnail(row.getId()));
+        }
+    }
+
+    @Benchmark
+    public void thumbnailDataUris(CatalogState catalog, Blackhole blackhole) {
+        for (ProductRow row : rows) {
+            byte[] image = catalog.productService.getThumbnail(row.getId()).orElseThrow();
+            blackhole.consume("data:image;base64," + Base64.getEncoder().encodeToString(image));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.application.components.upload;
+
+import com.vaadin.flow.component.upload.Receiver;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * A {@link Receiver} that streams an upload to a temporary file instead of
+ * buffering it in memory.
+ * <p>
+ * The upload fails as soon as it exceeds the given maximum size, regardless of
+ * what the client claims about the size of the file. Only the file of the latest
+ * upload is kept and it should be removed using {@link #discard()} once it has
+ * been processed.
+ */
+public class TempFileReceiver implements Receiver {
+
+    private final long maxFileSize;
+    private File file;
+
+    /**
+     * Creates a new receiver.
+     *
+     * @param maxFileSize
+     *            the maximum size of an upload, in bytes
+     */
+    public TempFileReceiver(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    @Override
+    public OutputStream receiveUpload(String fileName, String mimeType) {
+        discard();
+        try {
+            file = File.createTempFile("upload-", ".tmp");
+            return new LimitedOutputStream(new BufferedOutputStream(new FileOutputStream(file)), maxFileSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create a temporary file for the upload", e);
+        }
+    }
+
+    /**
+     * Opens the content of the latest upload for reading.
+     *
+     * @return a stream with the uploaded content, to be closed by the caller
+     * @throws IOException
+     *             if there is no upload or it cannot be read
+     */
+    public InputStream getInputStream() throws IOException {
+        if (file == null) {
+            throw new IOException("Nothing has been uploaded");
+        }
+        return new FileInputStream(file);
+    }
+
+    /**
+     * Deletes the file of the latest upload, if any.
+     */
+    public void discard() {
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+    }
+
+    private static class LimitedOutputStream extends FilterOutputStream {
+
+        private final long limit;
+        private long written;
+
+        LimitedOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkLimit(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkLimit(len);
+            out.write(b, off, len);
+        }
+
+        private void checkLimit(int length) throws IOException {
+            written += length;
+            if (written > limit) {
+                throw new IOException("Upload exceeds the maximum size of " + limit + " bytes");
+            }
+        }
+    }
+}
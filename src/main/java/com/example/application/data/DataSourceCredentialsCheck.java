@@ -0,0 +1,48 @@
+package com.example.application.data;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Stops the prod profile from starting without database credentials. They are
+ * usually given by JDBC_USERNAME and JDBC_PASSWORD, but any way of setting
+ * spring.datasource.username and spring.datasource.password will do. Spring
+ * Boot would otherwise connect with the unresolved placeholders as the user name
+ * and password.
+ * <p>
+ * Checked before any bean is created, so that Flyway does not get to open the
+ * database first.
+ */
+@Component
+@Profile("prod")
+public class DataSourceCredentialsCheck implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        if (!isSet("spring.datasource.username") || !isSet("spring.datasource.password")) {
+            throw new IllegalStateException("The database credentials must be set in the prod profile, "
+                    + "e.g. through JDBC_USERNAME and JDBC_PASSWORD");
+        }
+    }
+
+    private boolean isSet(String property) {
+        try {
+            return StringUtils.hasText(environment.getProperty(property));
+        } catch (IllegalArgumentException e) {
+            // The value refers to a placeholder that is not set
+            return false;
+        }
+    }
+}
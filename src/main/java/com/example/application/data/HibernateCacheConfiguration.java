@@ -0,0 +1,122 @@
+package com.example.application.data;
+
+import com.example.application.data.entity.Category;
+import com.example.application.data.entity.Product;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.FactoryBuilder;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cache.spi.entry.StandardCacheEntryImpl;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Sets up the Hibernate second-level cache for the entities and the paged row
+ * queries, backed by bounded in-process Caffeine caches. The entity caches are
+ * bounded by the bytes of the thumbnails they hold rather than by the number of
+ * entities.
+ * <p>
+ * Hibernate keeps the caches consistent by itself: cached entities are replaced
+ * when they are updated or deleted, and cached query results are discarded once
+ * any table they read from is written. Hit and miss counts of every cache are
+ * published as JCache statistics MBeans and as metrics.
+ */
+@Configuration
+public class HibernateCacheConfiguration {
+
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager(@Value("${cache.entity.max-bytes:64MB}") DataSize entityMaxBytes,
+            @Value("${cache.entity.time-to-live:1h}") Duration entityTimeToLive,
+            @Value("${cache.query.max-size:1000}") long queryMaxSize,
+            @Value("${cache.query.time-to-live:10m}") Duration queryTimeToLive) {
+        // A cache manager of its own for every application context, so that
+        // contexts in the same JVM (tests, devtools restarts) never share caches
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(Product.class.getName(), entityConfiguration(entityMaxBytes, entityTimeToLive));
+        cacheManager.createCache(Category.class.getName(), entityConfiguration(entityMaxBytes, entityTimeToLive));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                configuration(queryMaxSize, queryTimeToLive));
+        // The last write time of each table decides whether a cached query result
+        // is still valid, so these entries must never be evicted
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                configuration(null, null));
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    @Bean
+    MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String name : hibernateCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(name), "cache.manager", "hibernate");
+            }
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> entityConfiguration(DataSize maxBytes,
+            Duration timeToLive) {
+        CaffeineConfiguration<Object, Object> configuration = configuration(null, timeToLive);
+        configuration.setMaximumWeight(OptionalLong.of(maxBytes.toBytes()));
+        configuration.setWeigherFactory(Optional.of(FactoryBuilder.factoryOf(EntityWeigher.class)));
+        return configuration;
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration(Long maxSize, Duration timeToLive) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maxSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        if (timeToLive != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+
+    /**
+     * Weighs a cached entity by the byte arrays of its state, such as its
+     * thumbnails, plus a fixed amount for its other fields.
+     */
+    public static class EntityWeigher implements Weigher<Object, Object> {
+
+        private static final int ENTITY_OVERHEAD = 1024;
+
+        @Override
+        public int weigh(Object key, Object value) {
+            // Read-write caching wraps the entry, which holds the disassembled
+            // column values
+            Object entry = value instanceof AbstractReadWriteAccess.Item
+                    ? ((AbstractReadWriteAccess.Item) value).getValue()
+                    : value;
+            int weight = ENTITY_OVERHEAD;
+            if (entry instanceof StandardCacheEntryImpl) {
+                for (Object column : ((StandardCacheEntryImpl) entry).getDisassembledState()) {
+                    if (column instanceof byte[]) {
+                        weight += ((byte[]) column).length;
+                    }
+                }
+            }
+            return weight;
+        }
+    }
+}
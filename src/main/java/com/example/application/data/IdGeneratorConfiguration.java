@@ -0,0 +1,23 @@
+package com.example.application.data;
+
+import com.example.application.data.entity.PooledSequenceGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Passes the id allocation settings to {@link PooledSequenceGenerator}.
+ */
+@Configuration
+public class IdGeneratorConfiguration {
+
+    @Bean
+    HibernatePropertiesCustomizer idGeneratorCustomizer(@Value("${id.allocation-size:50}") int allocationSize,
+            @Value("${id.optimizer:pooled}") String optimizer) {
+        return properties -> {
+            properties.put(PooledSequenceGenerator.ALLOCATION_SIZE, String.valueOf(allocationSize));
+            properties.put(PooledSequenceGenerator.OPTIMIZER, optimizer);
+        };
+    }
+}
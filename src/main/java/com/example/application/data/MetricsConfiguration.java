@@ -0,0 +1,21 @@
+package com.example.application.data;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Records the latency of the service methods annotated with
+ * {@link io.micrometer.core.annotation.Timed}, tagged with the class and method
+ * name. The metrics are served in the Prometheus format by the actuator, on the
+ * management port.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
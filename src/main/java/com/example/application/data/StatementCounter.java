@@ -0,0 +1,108 @@
+package com.example.application.data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements that Hibernate prepares on each thread, so that the
+ * statements of a piece of work are the difference of the counts before and
+ * after it. A JDBC batch is prepared once and counts as one statement.
+ * <p>
+ * The statements themselves are only kept while a {@link Recording} is open on
+ * the thread.
+ * <p>
+ * Registered with Hibernate as its statement inspector.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Statements> STATEMENTS = ThreadLocal.withInitial(Statements::new);
+
+    /**
+     * Returns the number of statements prepared on the current thread so far.
+     */
+    public static long get() {
+        return STATEMENTS.get().count;
+    }
+
+    /**
+     * Starts recording the statements prepared on the current thread, until the
+     * returned recording is stopped. Recordings may be nested.
+     */
+    public static Recording record() {
+        Statements statements = STATEMENTS.get();
+        if (statements.recordings++ == 0) {
+            statements.recorded = new ArrayList<>();
+        }
+        return new Recording(statements, statements.recorded.size());
+    }
+
+    /**
+     * Returns the statements that occur more than once with the number of times
+     * they do, most frequent first. A statement repeated with different
+     * parameters is the telltale of an association loaded one row at a time.
+     */
+    public static Map<String, Long> repeated(List<String> statements) {
+        return statements.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                .entrySet().stream().filter(e -> e.getValue() > 1)
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Statements statements = STATEMENTS.get();
+        statements.count++;
+        if (statements.recorded != null) {
+            statements.recorded.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * The statements prepared on a thread since {@link StatementCounter#record()}
+     * was called.
+     */
+    public static class Recording implements AutoCloseable {
+
+        private final Statements statements;
+        private final int from;
+        private List<String> recorded;
+
+        private Recording(Statements statements, int from) {
+            this.statements = statements;
+            this.from = from;
+        }
+
+        /**
+         * Stops recording and returns the statements recorded, in the order they
+         * were prepared.
+         */
+        public List<String> stop() {
+            if (recorded == null) {
+                recorded = List.copyOf(statements.recorded.subList(from, statements.recorded.size()));
+                if (--statements.recordings == 0) {
+                    statements.recorded = null;
+                }
+            }
+            return recorded;
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+
+    private static class Statements {
+
+        private long count;
+        private int recordings;
+        private List<String> recorded;
+    }
+}
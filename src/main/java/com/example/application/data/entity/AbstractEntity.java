@@ -4,16 +4,16 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Version;
+import org.hibernate.annotations.GenericGenerator;
 
 @MappedSuperclass
 public abstract class AbstractEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idgenerator")
-    // The initial value is to account for data.sql demo data ids
-    @SequenceGenerator(name = "idgenerator", initialValue = 1000)
+    @GenericGenerator(name = "idgenerator",
+            strategy = "com.example.application.data.entity.PooledSequenceGenerator")
     private Long id;
 
     @Version
@@ -31,6 +31,16 @@ public abstract class AbstractEntity {
         return version;
     }
 
+    /**
+     * Copies the id and version of this entity to the given copy of it.
+     */
+    protected <T extends AbstractEntity> T copyIdentityTo(T copy) {
+        AbstractEntity target = copy;
+        target.id = id;
+        target.version = version;
+        return copy;
+    }
+
     @Override
     public int hashCode() {
         if (getId() != null) {
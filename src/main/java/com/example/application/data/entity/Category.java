@@ -1,18 +1,28 @@
 package com.example.application.data.entity;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Lob;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Category extends AbstractEntity {
 
     private String nameCategory;
     private String slugProduct;
-    private String totalProduct;
+    // Maintained by ProductService, never written from the entity
+    @Column(nullable = false, updatable = false)
+    private Long totalProduct = 0L;
     @Lob
     @Column(length = 1000000)
     private byte[] thumbnailSlug;
+    @Lob
+    @Column(length = 100000)
+    private byte[] thumbnailSlugSmall;
 
     public String getNameCategory() {
         return nameCategory;
@@ -26,10 +36,10 @@ public class Category extends AbstractEntity {
     public void setSlugProduct(String slugProduct) {
         this.slugProduct = slugProduct;
     }
-    public String getTotalProduct() {
+    public Long getTotalProduct() {
         return totalProduct;
     }
-    public void setTotalProduct(String totalProduct) {
+    public void setTotalProduct(Long totalProduct) {
         this.totalProduct = totalProduct;
     }
     public byte[] getThumbnailSlug() {
@@ -38,5 +48,25 @@ public class Category extends AbstractEntity {
     public void setThumbnailSlug(byte[] thumbnailSlug) {
         this.thumbnailSlug = thumbnailSlug;
     }
+    public byte[] getThumbnailSlugSmall() {
+        return thumbnailSlugSmall;
+    }
+    public void setThumbnailSlugSmall(byte[] thumbnailSlugSmall) {
+        this.thumbnailSlugSmall = thumbnailSlugSmall;
+    }
+
+    /**
+     * Returns a detached copy of this category, sharing the thumbnail arrays
+     * with it.
+     */
+    public Category copy() {
+        Category copy = copyIdentityTo(new Category());
+        copy.nameCategory = nameCategory;
+        copy.slugProduct = slugProduct;
+        copy.totalProduct = totalProduct;
+        copy.thumbnailSlug = thumbnailSlug;
+        copy.thumbnailSlugSmall = thumbnailSlugSmall;
+        return copy;
+    }
 
 }
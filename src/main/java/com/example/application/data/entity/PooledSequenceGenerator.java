@@ -0,0 +1,57 @@
+package com.example.application.data.entity;
+
+import java.util.Properties;
+import java.util.Set;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Generates ids from a sequence of their own for every entity,
+ * {@code <entity>_seq}, and hands them out in blocks so that inserting a block
+ * of rows takes a single sequence call.
+ * <p>
+ * The block size and the optimizer, {@code pooled} or {@code pooled-lo}, are
+ * taken from the {@link #ALLOCATION_SIZE} and {@link #OPTIMIZER} settings. The
+ * sequences start at {@value #INITIAL_VALUE}, the ids below are reserved for
+ * the demo data in db/demo.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE = "app.id.allocation_size";
+    public static final String OPTIMIZER = "app.id.optimizer";
+
+    static final int INITIAL_VALUE = 1000;
+
+    private static final String DEFAULT_ALLOCATION_SIZE = "50";
+    private static final Set<String> OPTIMIZERS = Set.of(StandardOptimizerDescriptor.POOLED.getExternalName(),
+            StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService settings = serviceRegistry.getService(ConfigurationService.class);
+        int allocationSize = Integer.parseInt(
+                settings.getSetting(ALLOCATION_SIZE, StandardConverters.STRING, DEFAULT_ALLOCATION_SIZE));
+        String optimizer = settings.getSetting(OPTIMIZER, StandardConverters.STRING,
+                StandardOptimizerDescriptor.POOLED.getExternalName());
+        if (allocationSize < 1) {
+            throw new MappingException("Invalid id allocation size " + allocationSize);
+        }
+        if (!OPTIMIZERS.contains(optimizer)) {
+            throw new MappingException("Unsupported id optimizer " + optimizer + ", expected one of " + OPTIMIZERS);
+        }
+        params.setProperty(CONFIG_PREFER_SEQUENCE_PER_ENTITY, "true");
+        params.setProperty(CONFIG_SEQUENCE_PER_ENTITY_SUFFIX, "_seq");
+        params.setProperty(INITIAL_PARAM, String.valueOf(INITIAL_VALUE));
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        // A block of one needs no optimizer
+        if (allocationSize > 1) {
+            params.setProperty(OPT_PARAM, optimizer);
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -1,20 +1,36 @@
 package com.example.application.data.entity;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
+import javax.persistence.ManyToOne;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Product extends AbstractEntity {
 
     private String nameProduct;
-    private String nameCategory;
-    private String priceProduct;
-    private String soldProduct;
-    private String madeOn;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id")
+    private Category category;
+    @Column(precision = 19, scale = 2)
+    private BigDecimal priceProduct;
+    private Long soldProduct;
+    private LocalDate madeOn;
     @Lob
     @Column(length = 1000000)
     private byte[] thumbnailProduct;
+    @Lob
+    @Column(length = 100000)
+    private byte[] thumbnailProductSmall;
 
     public String getNameProduct() {
         return nameProduct;
@@ -22,28 +38,28 @@ public class Product extends AbstractEntity {
     public void setNameProduct(String nameProduct) {
         this.nameProduct = nameProduct;
     }
-    public String getNameCategory() {
-        return nameCategory;
+    public Category getCategory() {
+        return category;
     }
-    public void setNameCategory(String nameCategory) {
-        this.nameCategory = nameCategory;
+    public void setCategory(Category category) {
+        this.category = category;
     }
-    public String getPriceProduct() {
+    public BigDecimal getPriceProduct() {
         return priceProduct;
     }
-    public void setPriceProduct(String priceProduct) {
+    public void setPriceProduct(BigDecimal priceProduct) {
         this.priceProduct = priceProduct;
     }
-    public String getSoldProduct() {
+    public Long getSoldProduct() {
         return soldProduct;
     }
-    public void setSoldProduct(String soldProduct) {
+    public void setSoldProduct(Long soldProduct) {
         this.soldProduct = soldProduct;
     }
-    public String getMadeOn() {
+    public LocalDate getMadeOn() {
         return madeOn;
     }
-    public void setMadeOn(String madeOn) {
+    public void setMadeOn(LocalDate madeOn) {
         this.madeOn = madeOn;
     }
     public byte[] getThumbnailProduct() {
@@ -52,5 +68,27 @@ public class Product extends AbstractEntity {
     public void setThumbnailProduct(byte[] thumbnailProduct) {
         this.thumbnailProduct = thumbnailProduct;
     }
+    public byte[] getThumbnailProductSmall() {
+        return thumbnailProductSmall;
+    }
+    public void setThumbnailProductSmall(byte[] thumbnailProductSmall) {
+        this.thumbnailProductSmall = thumbnailProductSmall;
+    }
+
+    /**
+     * Returns a detached copy of this product, sharing the category and the
+     * thumbnail arrays with it.
+     */
+    public Product copy() {
+        Product copy = copyIdentityTo(new Product());
+        copy.nameProduct = nameProduct;
+        copy.category = category;
+        copy.priceProduct = priceProduct;
+        copy.soldProduct = soldProduct;
+        copy.madeOn = madeOn;
+        copy.thumbnailProduct = thumbnailProduct;
+        copy.thumbnailProductSmall = thumbnailProductSmall;
+        return copy;
+    }
 
 }
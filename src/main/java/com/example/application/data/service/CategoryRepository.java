@@ -1,9 +1,66 @@
 package com.example.application.data.service;
 
 import com.example.application.data.entity.Category;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface CategoryRepository extends JpaRepository<Category, Long>, JpaSpecificationExecutor<Category> {
+public interface CategoryRepository
+        extends JpaRepository<Category, Long>, JpaSpecificationExecutor<Category>, CategoryRepositoryCustom {
+
+    @Query("select new com.example.application.data.service.CategoryRow(c.id, c.version, c.nameCategory, "
+            + "c.slugProduct, c.totalProduct, case when c.thumbnailSlug is null then false else true end) "
+            + "from Category c")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    Slice<CategoryRow> findRows(Pageable pageable);
+
+    @Query("select new com.example.application.data.service.CategoryRow(c.id, c.version, c.nameCategory, "
+            + "c.slugProduct, c.totalProduct, case when c.thumbnailSlug is null then false else true end) "
+            + "from Category c where c.nameCategory like :prefix% order by c.nameCategory")
+    List<CategoryRow> findRowsByNamePrefix(String prefix, Pageable pageable);
+
+    @Query("select new com.example.application.data.service.CategoryRow(c.id, c.version, c.nameCategory, "
+            + "c.slugProduct, c.totalProduct, case when c.thumbnailSlug is null then false else true end) "
+            + "from Category c where c.id = :id")
+    Optional<CategoryRow> findRowById(Long id);
+
+    /**
+     * Streams all rows in the order of their ids through a forward-only cursor.
+     * Has to be called within a transaction and the stream has to be closed.
+     */
+    @Query("select new com.example.application.data.service.CategoryRow(c.id, c.version, c.nameCategory, "
+            + "c.slugProduct, c.totalProduct, case when c.thumbnailSlug is null then false else true end) "
+            + "from Category c order by c.id")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<CategoryRow> streamRows();
+
+    /**
+     * Adds the given delta to the number of products of a category. Runs as a
+     * single update statement so that concurrent product writes do not lose
+     * each other's changes.
+     */
+    @Modifying
+    @Query("update Category c set c.totalProduct = c.totalProduct + :delta where c.id = :id")
+    int addToTotalProduct(Long id, long delta);
+
+    @Query("select min(c.id) from Category c where c.nameCategory = :name")
+    Optional<Long> findIdByName(String name);
+
+    // Not flushing keeps pending changes of a managed category from hiding the
+    // name stored in the database
+    @Query("select c.nameCategory from Category c where c.id = :id")
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FLUSH_MODE, value = "COMMIT"))
+    Optional<String> findNameById(Long id);
+
+    @Query("select c.version from Category c where c.id = :id")
+    Optional<Integer> findVersionById(Long id);
 
 }
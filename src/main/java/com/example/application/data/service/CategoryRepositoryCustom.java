@@ -0,0 +1,23 @@
+package com.example.application.data.service;
+
+import java.util.Optional;
+
+/**
+ * Queries of {@link CategoryRepository} that cannot be expressed as derived or
+ * annotated queries.
+ */
+public interface CategoryRepositoryCustom {
+
+    /**
+     * Fetches the thumbnail of a category, empty if the category does not exist
+     * or has no thumbnail.
+     */
+    Optional<byte[]> findThumbnailById(Long id);
+
+    /**
+     * Fetches the small thumbnail of a category, or its thumbnail if it has no
+     * small one.
+     */
+    Optional<byte[]> findSmallThumbnailById(Long id);
+
+}
@@ -0,0 +1,30 @@
+package com.example.application.data.service;
+
+import java.util.Objects;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+class CategoryRepositoryCustomImpl implements CategoryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<byte[]> findThumbnailById(Long id) {
+        return findBytes("select c.thumbnailSlug from Category c where c.id = :id", id);
+    }
+
+    @Override
+    public Optional<byte[]> findSmallThumbnailById(Long id) {
+        return findBytes("select coalesce(c.thumbnailSlugSmall, c.thumbnailSlug) from Category c where c.id = :id",
+                id);
+    }
+
+    private Optional<byte[]> findBytes(String jpql, Long id) {
+        // Queried here rather than as an annotated query, whose result Spring Data
+        // would convert byte by byte
+        return entityManager.createQuery(jpql, byte[].class).setParameter("id", id).getResultList().stream()
+                .filter(Objects::nonNull).findFirst();
+    }
+}
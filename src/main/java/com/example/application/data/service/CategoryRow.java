@@ -0,0 +1,62 @@
+package com.example.application.data.service;
+
+import java.util.Objects;
+
+/**
+ * A lightweight, read-only view of a {@link com.example.application.data.entity.Category}
+ * used for listing categories.
+ * <p>
+ * Rows never carry the thumbnail bytes, only whether a thumbnail exists, so
+ * fetching a page of rows does not read the image column.
+ */
+public class CategoryRow {
+
+    private final Long id;
+    private final int version;
+    private final String nameCategory;
+    private final String slugProduct;
+    private final Long totalProduct;
+    private final boolean thumbnail;
+
+    public CategoryRow(Long id, int version, String nameCategory, String slugProduct, Long totalProduct,
+            boolean thumbnail) {
+        this.id = id;
+        this.version = version;
+        this.nameCategory = nameCategory;
+        this.slugProduct = slugProduct;
+        this.totalProduct = totalProduct;
+        this.thumbnail = thumbnail;
+    }
+
+    public Long getId() {
+        return id;
+    }
+    public int getVersion() {
+        return version;
+    }
+    public String getNameCategory() {
+        return nameCategory;
+    }
+    public String getSlugProduct() {
+        return slugProduct;
+    }
+    public Long getTotalProduct() {
+        return totalProduct;
+    }
+    public boolean hasThumbnail() {
+        return thumbnail;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof CategoryRow)) {
+            return false; // null or other class
+        }
+        return Objects.equals(id, ((CategoryRow) obj).id);
+    }
+}
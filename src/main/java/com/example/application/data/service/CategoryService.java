@@ -1,43 +1,199 @@
 package com.example.application.data.service;
 
 import com.example.application.data.entity.Category;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
 
 @Service
-public class CategoryService {
+public class CategoryService implements MeterBinder {
 
     private final CategoryRepository repository;
+    private final ProductService productService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReadThroughCache<Category> cache;
+    private final RowCounter counter;
 
-    public CategoryService(CategoryRepository repository) {
+    public CategoryService(CategoryRepository repository, ProductService productService,
+            ApplicationEventPublisher eventPublisher, @Value("${cache.service.max-size:1000}") long cacheMaxSize,
+            @Value("${cache.service.max-entity-size:64MB}") DataSize cacheMaxEntitySize) {
         this.repository = repository;
+        this.productService = productService;
+        this.eventPublisher = eventPublisher;
+        this.cache = new ReadThroughCache<>(cacheMaxSize, cacheMaxEntitySize, Category::copy,
+                category -> ReadThroughCache.length(category.getThumbnailSlug(), category.getThumbnailSlugSmall()));
+        this.counter = new RowCounter(repository::count);
     }
 
+    @Timed("service.calls")
     public Optional<Category> get(Long id) {
-        return repository.findById(id);
+        return cache.get(id, repository::findById);
     }
 
+    /**
+     * Saves the category. A rename is applied to the search index and the
+     * cached product rows once it has committed.
+     */
+    @Timed("service.calls")
+    @Transactional
     public Category update(Category entity) {
-        return repository.save(entity);
+        boolean insert = entity.getId() == null;
+        String oldName = insert ? null : repository.findNameById(entity.getId()).orElse(null);
+        Category saved = repository.save(entity);
+        cache.written(saved.getId(), saved::getVersion);
+        if (insert) {
+            counter.add(1);
+        } else if (!Objects.equals(oldName, saved.getNameCategory())) {
+            // Products are searchable by the name of their category
+            afterCommit(() -> productService.reindexCategory(saved.getId()));
+        }
+        eventPublisher.publishEvent(new EntityChangedEvent(Category.class, saved.getId(),
+                insert ? EntityChangedEvent.Change.CREATED : EntityChangedEvent.Change.UPDATED));
+        return saved;
     }
 
+    @Timed("service.calls")
+    @Transactional
     public void delete(Long id) {
         repository.deleteById(id);
+        cache.deleted(id);
+        counter.add(-1);
+        eventPublisher.publishEvent(new EntityChangedEvent(Category.class, id, EntityChangedEvent.Change.DELETED));
     }
 
+    /**
+     * Runs the given action once the current transaction commits, and not at
+     * all if it rolls back.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @EventListener
+    public void onTotalChanged(CategoryTotalChangedEvent event) {
+        cache.invalidate(event.getCategoryId());
+    }
+
+    @Timed("service.calls")
     public Page<Category> list(Pageable pageable) {
         return repository.findAll(pageable);
     }
 
+    @Timed("service.calls")
     public Page<Category> list(Pageable pageable, Specification<Category> filter) {
         return repository.findAll(filter, pageable);
     }
 
-    public int count() {
-        return (int) repository.count();
+    /**
+     * Fetches one page of rows without counting the total number of rows, use
+     * {@link #count()} for that.
+     */
+    @Timed("service.calls")
+    public Slice<CategoryRow> listRows(Pageable pageable) {
+        return cache.query(() -> repository.findRows(pageable), "rows", pageable);
+    }
+
+    /**
+     * Lists the categories whose name starts with the given prefix, in
+     * alphabetical order.
+     */
+    @Timed("service.calls")
+    public List<CategoryRow> listRowsByName(String prefix, Pageable pageable) {
+        return cache.query(() -> repository.findRowsByNamePrefix(prefix, pageable), "rowsByName", prefix, pageable);
+    }
+
+    /**
+     * Passes all rows to the given action, in the order of their ids, without
+     * holding all of them in memory.
+     */
+    @Transactional(readOnly = true)
+    public void forEachRow(Consumer<CategoryRow> action) {
+        try (Stream<CategoryRow> rows = repository.streamRows()) {
+            rows.forEach(action);
+        }
+    }
+
+    @Timed("service.calls")
+    public Optional<CategoryRow> getRow(Long id) {
+        return cache.query(() -> repository.findRowById(id), "row", id);
+    }
+
+    /**
+     * Finds the id of the category with the given name, the oldest one if there
+     * are several.
+     */
+    public Optional<Long> findIdByName(String name) {
+        return repository.findIdByName(name);
+    }
+
+    /**
+     * Returns a reference to the category with the given id without loading
+     * it, to be used for associating products with the category.
+     */
+    public Category getReference(Long id) {
+        return repository.getReferenceById(id);
+    }
+
+    public Optional<Integer> getVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Timed("service.calls")
+    public Optional<byte[]> getThumbnail(Long id) {
+        return repository.findThumbnailById(id);
+    }
+
+    @Timed("service.calls")
+    public Optional<byte[]> getSmallThumbnail(Long id) {
+        return repository.findSmallThumbnailById(id);
+    }
+
+    /**
+     * Returns the number of categories, without counting them on every call.
+     */
+    public long count() {
+        return counter.get();
+    }
+
+    @Scheduled(fixedDelayString = "${count.refresh-interval:PT10M}",
+            initialDelayString = "${count.refresh-interval:PT10M}")
+    public void refreshCount() {
+        counter.refresh();
+    }
+
+    /**
+     * Publishes the hit and miss counts of the service cache.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cache.bindTo(registry, "categories");
     }
 
 }
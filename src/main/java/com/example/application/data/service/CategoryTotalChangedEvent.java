@@ -0,0 +1,18 @@
+package com.example.application.data.service;
+
+/**
+ * Published by {@link ProductService} when a product write changes the number
+ * of products of a category.
+ */
+public class CategoryTotalChangedEvent {
+
+    private final Long categoryId;
+
+    public CategoryTotalChangedEvent(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.application.data.service;
+
+import com.example.application.data.entity.Product;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+/**
+ * Exports products and categories as CSV files.
+ * <p>
+ * Rows are streamed from the database and written out as they arrive, so that
+ * memory use does not depend on the number of rows. Thumbnails are never read.
+ * Products are written with the columns of {@link ProductImportService}, so that
+ * an export can be imported again.
+ */
+@Service
+public class CsvExportService {
+
+    public static final List<String> CATEGORY_COLUMNS = List.of("nameCategory", "slugProduct", "totalProduct");
+
+    private final ProductService productService;
+    private final CategoryService categoryService;
+    private final int fetchSize;
+
+    public CsvExportService(ProductService productService, CategoryService categoryService,
+            @Value("${export.fetch-size:500}") int fetchSize) {
+        this.productService = productService;
+        this.categoryService = categoryService;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes the products matching the given filter as UTF-8 encoded CSV.
+     *
+     * @param filter
+     *            the filter to apply, or {@code null} to export all products
+     * @param output
+     *            the stream to write to, left open
+     */
+    public void exportProducts(Specification<Product> filter, OutputStream output) throws IOException {
+        CSVPrinter printer = printer(output, ProductImportService.COLUMNS);
+        try {
+            productService.forEachRow(filter, fetchSize,
+                    row -> print(printer, row.getNameProduct(), row.getNameCategory(),
+                            row.getPriceProduct() == null ? null : row.getPriceProduct().toPlainString(),
+                            row.getSoldProduct(), row.getMadeOn()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        printer.flush();
+    }
+
+    /**
+     * Writes all categories as UTF-8 encoded CSV.
+     *
+     * @param output
+     *            the stream to write to, left open
+     */
+    public void exportCategories(OutputStream output) throws IOException {
+        CSVPrinter printer = printer(output, CATEGORY_COLUMNS);
+        try {
+            categoryService.forEachRow(
+                    row -> print(printer, row.getNameCategory(), row.getSlugProduct(), row.getTotalProduct()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        printer.flush();
+    }
+
+    private static CSVPrinter printer(OutputStream output, List<String> columns) throws IOException {
+        return CSVFormat.DEFAULT.builder().setHeader(columns.toArray(new String[0])).build()
+                .print(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+    }
+
+    private static void print(CSVPrinter printer, Object... values) {
+        try {
+            printer.printRecord(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.application.data.service;
+
+import com.example.application.data.entity.AbstractEntity;
+
+/**
+ * Published by the services whenever they create, update or delete an entity.
+ * Listeners that need the change to be committed should use a transactional
+ * event listener.
+ */
+public class EntityChangedEvent {
+
+    public enum Change {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Class<? extends AbstractEntity> entityType;
+    private final Long id;
+    private final Change change;
+
+    public EntityChangedEvent(Class<? extends AbstractEntity> entityType, Long id, Change change) {
+        this.entityType = entityType;
+        this.id = id;
+        this.change = change;
+    }
+
+    public Class<? extends AbstractEntity> getEntityType() {
+        return entityType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.application.data.service;
+
+import com.example.application.data.entity.Category;
+import com.example.application.data.entity.Product;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Imports products from CSV files.
+ * <p>
+ * The file is read as a stream and written in chunks, each inserted with batched
+ * statements in a transaction of its own, so that memory use does not depend on
+ * the size of the file. Rows that fail validation are skipped and reported, all
+ * other rows are imported.
+ * <p>
+ * The first row names the columns, in any order, out of {@link #COLUMNS}. Only
+ * the product name is required. Categories are given by name and have to exist.
+ */
+@Service
+public class ProductImportService {
+
+    public static final String NAME_PRODUCT = "nameProduct";
+    public static final String NAME_CATEGORY = "nameCategory";
+    public static final String PRICE_PRODUCT = "priceProduct";
+    public static final String SOLD_PRODUCT = "soldProduct";
+    public static final String MADE_ON = "madeOn";
+    public static final List<String> COLUMNS = List.of(NAME_PRODUCT, NAME_CATEGORY, PRICE_PRODUCT, SOLD_PRODUCT,
+            MADE_ON);
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ProductService productService;
+    private final CategoryService categoryService;
+    private final int maxUploadSize;
+    private final int chunkSize;
+
+    public ProductImportService(ProductService productService, CategoryService categoryService,
+            @Value("${import.max-upload-size:104857600}") int maxUploadSize,
+            @Value("${import.chunk-size:1000}") int chunkSize) {
+        this.productService = productService;
+        this.categoryService = categoryService;
+        this.maxUploadSize = maxUploadSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the largest accepted file, in bytes.
+     */
+    public int getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    /**
+     * Imports the given file in the background, see
+     * {@link #importCsv(InputStream, Consumer)}.
+     */
+    @Async
+    public CompletableFuture<ImportResult> importCsvAsync(InputStream input, Consumer<ImportResult> progress) {
+        try {
+            return CompletableFuture.completedFuture(importCsv(input, progress));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Imports the products of the given file.
+     *
+     * @param input
+     *            the UTF-8 encoded file, closed by this method
+     * @param progress
+     *            called with the result so far after every written chunk
+     * @return the result of the import
+     * @throws IOException
+     *             if the file cannot be read or its header is invalid, rows of
+     *             earlier chunks have been imported in that case
+     */
+    public ImportResult importCsv(InputStream input, Consumer<ImportResult> progress) throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true)
+                .setIgnoreSurroundingSpaces(true).setIgnoreEmptyLines(true).build();
+        Map<String, Optional<Category>> categories = new HashMap<>();
+        List<Product> chunk = new ArrayList<>(chunkSize);
+        ImportResult result = new ImportResult(0, 0, List.of());
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+                CSVParser parser = format.parse(reader)) {
+            checkHeader(parser.getHeaderNames());
+            List<String> errors = new ArrayList<>();
+            int failed = 0;
+            for (CSVRecord record : parser) {
+                try {
+                    chunk.add(toProduct(record, categories));
+                } catch (IllegalArgumentException e) {
+                    failed++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("Line " + parser.getCurrentLineNumber() + ": " + e.getMessage());
+                    }
+                }
+                if (chunk.size() == chunkSize) {
+                    productService.createAll(chunk);
+                    result = new ImportResult(result.getImported() + chunk.size(), failed, errors);
+                    progress.accept(result);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                productService.createAll(chunk);
+            }
+            result = new ImportResult(result.getImported() + chunk.size(), failed, errors);
+            progress.accept(result);
+            return result;
+        }
+    }
+
+    private static void checkHeader(List<String> header) throws IOException {
+        if (!header.contains(NAME_PRODUCT)) {
+            throw new IOException("Missing column " + NAME_PRODUCT);
+        }
+        for (String column : header) {
+            if (!COLUMNS.contains(column)) {
+                throw new IOException("Unknown column " + column + ", expected some of " + COLUMNS);
+            }
+        }
+    }
+
+    private Product toProduct(CSVRecord record, Map<String, Optional<Category>> categories) {
+        Product product = new Product();
+        String name = value(record, NAME_PRODUCT);
+        if (name == null) {
+            throw new IllegalArgumentException("Missing product name");
+        }
+        product.setNameProduct(name);
+        String categoryName = value(record, NAME_CATEGORY);
+        if (categoryName != null) {
+            // Looked up once per name, products of the same category share the reference
+            product.setCategory(categories
+                    .computeIfAbsent(categoryName,
+                            key -> categoryService.findIdByName(key).map(categoryService::getReference))
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown category " + categoryName)));
+        }
+        String price = value(record, PRICE_PRODUCT);
+        if (price != null) {
+            product.setPriceProduct(parse(PRICE_PRODUCT, price, BigDecimal::new));
+            if (product.getPriceProduct().signum() < 0) {
+                throw new IllegalArgumentException("Negative " + PRICE_PRODUCT + " " + price);
+            }
+        }
+        String sold = value(record, SOLD_PRODUCT);
+        if (sold != null) {
+            product.setSoldProduct(parse(SOLD_PRODUCT, sold, Long::valueOf));
+            if (product.getSoldProduct() < 0) {
+                throw new IllegalArgumentException("Negative " + SOLD_PRODUCT + " " + sold);
+            }
+        }
+        String madeOn = value(record, MADE_ON);
+        if (madeOn != null) {
+            product.setMadeOn(parse(MADE_ON, madeOn, LocalDate::parse));
+        }
+        return product;
+    }
+
+    private static <T> T parse(String column, String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid " + column + " " + value);
+        }
+    }
+
+    private static String value(CSVRecord record, String column) {
+        if (!record.isSet(column) || record.get(column).isBlank()) {
+            return null;
+        }
+        return record.get(column);
+    }
+
+    /**
+     * The outcome of an import, or of the part of it done so far.
+     */
+    public static class ImportResult {
+
+        private final int imported;
+        private final int failed;
+        private final List<String> errors;
+
+        ImportResult(int imported, int failed, List<String> errors) {
+            this.imported = imported;
+            this.failed = failed;
+            this.errors = List.copyOf(errors);
+        }
+
+        /**
+         * Returns the number of imported rows.
+         */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * Returns the number of rows skipped because they were invalid.
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * Returns the reasons why rows were skipped, for the first skipped rows.
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -1,9 +1,50 @@
 package com.example.application.data.service;
 
 import com.example.application.data.entity.Product;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository
+        extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Optional<Product> findById(Long id);
+
+    // Not flushing keeps pending changes of a managed product from hiding the
+    // category stored in the database
+    @Query("select p.category.id from Product p where p.id = :id")
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FLUSH_MODE, value = "COMMIT"))
+    Optional<Long> findCategoryIdById(Long id);
+
+    /**
+     * Locks the given products until the end of the transaction and returns
+     * their versions and categories.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.id as id, p.version as version, p.category.id as categoryId from Product p "
+            + "where p.id in :ids")
+    List<LockedProduct> lockAllById(Collection<Long> ids);
+
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Integer> findVersionById(Long id);
+
+    interface LockedProduct {
+
+        Long getId();
+
+        int getVersion();
+
+        Long getCategoryId();
+    }
 
 }
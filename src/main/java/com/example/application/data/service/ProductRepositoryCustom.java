@@ -0,0 +1,88 @@
+package com.example.application.data.service;
+
+import com.example.application.data.entity.Product;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Queries of {@link ProductRepository} that cannot be expressed as derived or
+ * annotated queries.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Fetches one page of rows without counting the total number of rows.
+     *
+     * @param filter
+     *            the filter to apply, or {@code null} to fetch all rows
+     * @param pageable
+     *            the page to fetch
+     * @param cacheable
+     *            whether the result is kept in the query cache, only worth it
+     *            for pages that are fetched again, such as those of the grid
+     * @return the rows of the page
+     */
+    Slice<ProductRow> findRows(Specification<Product> filter, Pageable pageable, boolean cacheable);
+
+    /**
+     * Fetches the row of a single product.
+     */
+    Optional<ProductRow> findRowById(Long id);
+
+    /**
+     * Fetches the rows that follow the given row in the given sort order.
+     * <p>
+     * This is keyset (seek) pagination: instead of skipping an offset, the query
+     * continues from the sort key of the last row that was already fetched, so
+     * the cost of a fetch does not depend on how deep into the result it is.
+     * The id is used as the last sort key to make the order total, and nulls
+     * are ordered first.
+     *
+     * @param filter
+     *            the filter to apply, or {@code null} to fetch all rows
+     * @param after
+     *            the last row of the previous fetch, or {@code null} to start
+     *            from the beginning
+     * @param sort
+     *            the sort order, must be the same for all fetches of a result
+     * @param limit
+     *            the maximum number of rows to fetch
+     * @param cacheable
+     *            whether the result is kept in the query cache, see
+     *            {@link #findRows(Specification, Pageable, boolean)}
+     * @return the rows following {@code after}
+     */
+    List<ProductRow> findRowsAfter(Specification<Product> filter, ProductRow after, Sort sort, int limit,
+            boolean cacheable);
+
+    /**
+     * Streams all rows in the order of their ids through a forward-only cursor
+     * that fetches {@code fetchSize} rows at a time. Has to be called within a
+     * transaction and the stream has to be closed.
+     *
+     * @param filter
+     *            the filter to apply, or {@code null} to stream all rows
+     * @param fetchSize
+     *            the number of rows fetched from the database at a time
+     * @return the rows
+     */
+    Stream<ProductRow> streamRows(Specification<Product> filter, int fetchSize);
+
+    /**
+     * Fetches the thumbnail of a product, empty if the product does not exist or
+     * has no thumbnail.
+     */
+    Optional<byte[]> findThumbnailById(Long id);
+
+    /**
+     * Fetches the small thumbnail of a product, or its thumbnail if it has no
+     * small one.
+     */
+    Optional<byte[]> findSmallThumbnailById(Long id);
+
+}
@@ -0,0 +1,171 @@
+package com.example.application.data.service;
+
+import com.example.application.data.entity.Category;
+import com.example.application.data.entity.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<ProductRow> findRows(Specification<Product> filter, Pageable pageable, boolean cacheable) {
+        Sort order = withIdTieBreaker(pageable.getSort());
+        // One extra row tells whether there is a next slice without counting
+        List<ProductRow> rows = entityManager.createQuery(rowQuery(filter, null, order))
+                .setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize() + 1)
+                .setHint(QueryHints.HINT_CACHEABLE, cacheable).getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public List<ProductRow> findRowsAfter(Specification<Product> filter, ProductRow after, Sort sort, int limit,
+            boolean cacheable) {
+        return entityManager.createQuery(rowQuery(filter, after, withIdTieBreaker(sort))).setMaxResults(limit)
+                .setHint(QueryHints.HINT_CACHEABLE, cacheable).getResultList();
+    }
+
+    @Override
+    public Stream<ProductRow> streamRows(Specification<Product> filter, int fetchSize) {
+        // Rows are not entities, so the persistence context does not grow while
+        // streaming
+        return entityManager.createQuery(rowQuery(filter, null, Sort.by("id")))
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize).getResultStream();
+    }
+
+    @Override
+    public Optional<byte[]> findThumbnailById(Long id) {
+        return findBytes("select p.thumbnailProduct from Product p where p.id = :id", id);
+    }
+
+    @Override
+    public Optional<byte[]> findSmallThumbnailById(Long id) {
+        return findBytes("select coalesce(p.thumbnailProductSmall, p.thumbnailProduct) from Product p where p.id = :id",
+                id);
+    }
+
+    private Optional<byte[]> findBytes(String jpql, Long id) {
+        // Queried here rather than as an annotated query, whose result Spring Data
+        // would convert byte by byte
+        return entityManager.createQuery(jpql, byte[].class).setParameter("id", id).getResultList().stream()
+                .filter(Objects::nonNull).findFirst();
+    }
+
+    static Sort withIdTieBreaker(Sort sort) {
+        if (sort.getOrderFor("id") != null) {
+            return sort;
+        }
+        return sort.and(Sort.by(Sort.Order.asc("id")));
+    }
+
+    @Override
+    public Optional<ProductRow> findRowById(Long id) {
+        return entityManager.createQuery(rowQuery(ProductSpecifications.idIn(List.of(id)), null, Sort.unsorted()))
+                .setMaxResults(1).getResultList().stream().findFirst();
+    }
+
+    private CriteriaQuery<ProductRow> rowQuery(Specification<Product> filter, ProductRow after, Sort order) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductRow> query = cb.createQuery(ProductRow.class);
+        Root<Product> product = query.from(Product.class);
+        // The category name is joined into the same query instead of being
+        // loaded per row
+        Join<Product, Category> category = product.join("category", JoinType.LEFT);
+        query.select(cb.construct(ProductRow.class, product.get("id"), product.get("version"),
+                product.get("nameProduct"), category.get("nameCategory"), product.get("priceProduct"),
+                product.get("soldProduct"), product.get("madeOn"),
+                cb.selectCase().when(cb.isNull(product.get("thumbnailProduct")), false).otherwise(true)));
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filterPredicate = filter == null ? null : filter.toPredicate(product, query, cb);
+        if (filterPredicate != null) {
+            predicates.add(filterPredicate);
+        }
+        if (after != null) {
+            predicates.add(seekPredicate(cb, product, category, order, after));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order o : order) {
+            Expression<?> path = rowProperty(product, category, o.getProperty());
+            orders.add(o.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        query.orderBy(orders);
+        return query;
+    }
+
+    /**
+     * Returns the expression of the given {@link ProductRow} property.
+     */
+    private static Expression<?> rowProperty(Root<Product> product, Join<Product, Category> category,
+            String property) {
+        if ("nameCategory".equals(property)) {
+            return category.get("nameCategory");
+        }
+        return product.get(property);
+    }
+
+    /**
+     * Builds {@code (k1 > v1) or (k1 = v1 and k2 > v2) or ...} where "greater"
+     * follows the direction of each sort order and nulls come first.
+     * <p>
+     * The alternatives are preceded by {@code k1 >= v1}, which they imply, so
+     * that the database can start reading the index of the sort at the last row
+     * instead of skipping the rows before it.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Predicate seekPredicate(CriteriaBuilder cb, Root<Product> product,
+            Join<Product, Category> category, Sort sort, ProductRow after) {
+        BeanWrapper values = new BeanWrapperImpl(after);
+        List<Predicate> alternatives = new ArrayList<>();
+        List<Predicate> equalSoFar = new ArrayList<>();
+        Predicate start = null;
+        for (Sort.Order o : sort) {
+            Expression path = rowProperty(product, category, o.getProperty());
+            Comparable value = (Comparable) values.getPropertyValue(o.getProperty());
+
+            Predicate following;
+            if (value == null) {
+                following = cb.isNotNull(path);
+            } else {
+                following = o.isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+            }
+            List<Predicate> alternative = new ArrayList<>(equalSoFar);
+            alternative.add(following);
+            alternatives.add(cb.and(alternative.toArray(new Predicate[0])));
+
+            // Every row after a null key follows it, there is nothing to skip
+            if (equalSoFar.isEmpty() && value != null) {
+                start = o.isAscending() ? cb.greaterThanOrEqualTo(path, value) : cb.lessThanOrEqualTo(path, value);
+            }
+            equalSoFar.add(value == null ? cb.isNull(path) : cb.equal(path, value));
+        }
+        Predicate seek = cb.or(alternatives.toArray(new Predicate[0]));
+        return start == null ? seek : cb.and(start, seek);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.application.data.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * A lightweight, read-only view of a {@link com.example.application.data.entity.Product}
+ * used for listing products.
+ * <p>
+ * Rows never carry the thumbnail bytes, only whether a thumbnail exists, so
+ * fetching a page of rows does not read the image column.
+ */
+public class ProductRow {
+
+    private final Long id;
+    private final int version;
+    private final String nameProduct;
+    private final String nameCategory;
+    private final BigDecimal priceProduct;
+    private final Long soldProduct;
+    private final LocalDate madeOn;
+    private final boolean thumbnail;
+
+    public ProductRow(Long id, int version, String nameProduct, String nameCategory, BigDecimal priceProduct,
+            Long soldProduct, LocalDate madeOn, boolean thumbnail) {
+        this.id = id;
+        this.version = version;
+        this.nameProduct = nameProduct;
+        this.nameCategory = nameCategory;
+        this.priceProduct = priceProduct;
+        this.soldProduct = soldProduct;
+        this.madeOn = madeOn;
+        this.thumbnail = thumbnail;
+    }
+
+    public Long getId() {
+        return id;
+    }
+    public int getVersion() {
+        return version;
+    }
+    public String getNameProduct() {
+        return nameProduct;
+    }
+    public String getNameCategory() {
+        return nameCategory;
+    }
+    public BigDecimal getPriceProduct() {
+        return priceProduct;
+    }
+    public Long getSoldProduct() {
+        return soldProduct;
+    }
+    public LocalDate getMadeOn() {
+        return madeOn;
+    }
+    public boolean hasThumbnail() {
+        return thumbnail;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ProductRow)) {
+            return false; // null or other class
+        }
+        return Objects.equals(id, ((ProductRow) obj).id);
+    }
+}
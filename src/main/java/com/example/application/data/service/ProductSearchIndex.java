@@ -0,0 +1,206 @@
+package com.example.application.data.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * An in-memory inverted index over the product and category names of all
+ * products, used for type-ahead search.
+ * <p>
+ * Every word of the indexed texts is a term pointing to the ids of the products
+ * containing it. A search word matches a term if the term starts with it or, for
+ * words of at least {@value #FUZZY_MIN_LENGTH} characters, if it is one typo away
+ * from the term or its prefix. A product matches a search if every search word
+ * matches one of its terms.
+ * <p>
+ * The index is kept up to date by {@link ProductService}. Writers are
+ * serialized, searches run concurrently without locking.
+ */
+@Component
+public class ProductSearchIndex {
+
+    static final int FUZZY_MIN_LENGTH = 4;
+
+    private static final int EXACT_SCORE = 3;
+    private static final int PREFIX_SCORE = 2;
+    private static final int FUZZY_SCORE = 1;
+
+    private final ConcurrentNavigableMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Set<String>> termsById = new ConcurrentHashMap<>();
+
+    /**
+     * Adds or replaces the texts indexed for the given product.
+     */
+    public synchronized void put(Long id, String... texts) {
+        remove(id);
+        Set<String> terms = new HashSet<>();
+        for (String text : texts) {
+            terms.addAll(tokenize(text));
+        }
+        for (String term : terms) {
+            postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        termsById.put(id, terms);
+    }
+
+    /**
+     * Removes the given product from the index.
+     */
+    public synchronized void remove(Long id) {
+        Set<String> terms = termsById.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            postings.computeIfPresent(term, (t, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Removes all products from the index.
+     */
+    public synchronized void clear() {
+        postings.clear();
+        termsById.clear();
+    }
+
+    /**
+     * Returns the number of indexed products.
+     */
+    public int size() {
+        return termsById.size();
+    }
+
+    /**
+     * Finds the products matching all words of the given text.
+     *
+     * @param text
+     *            the text to search for
+     * @param limit
+     *            the maximum number of ids to return
+     * @return the ids of the best matching products, best matches first
+     */
+    public List<Long> search(String text, int limit) {
+        List<String> words = tokenize(text);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> scores = null;
+        for (String word : words) {
+            Map<Long, Integer> wordScores = match(word);
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                scores.keySet().retainAll(wordScores.keySet());
+                scores.replaceAll((id, score) -> score + wordScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit).map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the ids of the products having a term matching the given word,
+     * with the score of the best matching term.
+     */
+    private Map<Long, Integer> match(String word) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> entry : postings.subMap(word, word + Character.MAX_VALUE).entrySet()) {
+            addScores(scores, entry.getValue(), entry.getKey().equals(word) ? EXACT_SCORE : PREFIX_SCORE);
+        }
+        if (word.length() >= FUZZY_MIN_LENGTH) {
+            // Typos in the first character are not looked for, which keeps the
+            // number of terms to compare small
+            String first = word.substring(0, 1);
+            for (Map.Entry<String, Set<Long>> entry : postings.subMap(first, first + Character.MAX_VALUE)
+                    .entrySet()) {
+                String term = entry.getKey();
+                if (!term.startsWith(word) && isFuzzyMatch(word, term)) {
+                    addScores(scores, entry.getValue(), FUZZY_SCORE);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void addScores(Map<Long, Integer> scores, Set<Long> ids, int score) {
+        for (Long id : ids) {
+            scores.merge(id, score, Math::max);
+        }
+    }
+
+    private static boolean isFuzzyMatch(String word, String term) {
+        if (isOneEditAway(word, term)) {
+            return true;
+        }
+        // The user may not have typed the whole word yet
+        for (int length = word.length() - 1; length <= word.length() + 1; length++) {
+            if (length < term.length() && isOneEditAway(word, term.substring(0, length))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the strings differ by at most one inserted, deleted or
+     * replaced character.
+     */
+    static boolean isOneEditAway(String a, String b) {
+        if (Math.abs(a.length() - b.length()) > 1) {
+            return false;
+        }
+        String shorter = a.length() <= b.length() ? a : b;
+        String longer = a.length() <= b.length() ? b : a;
+        int i = 0;
+        int j = 0;
+        boolean edited = false;
+        while (i < shorter.length() && j < longer.length()) {
+            if (shorter.charAt(i) != longer.charAt(j)) {
+                if (edited) {
+                    return false;
+                }
+                edited = true;
+                if (shorter.length() == longer.length()) {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
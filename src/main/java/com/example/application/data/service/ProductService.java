@@ -1,43 +1,387 @@
 package com.example.application.data.service;
 
 import com.example.application.data.entity.Product;
+import com.example.application.data.service.ProductRepository.LockedProduct;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
 
 @Service
-public class ProductService {
+public class ProductService implements MeterBinder {
+
+    private static final int SEARCH_INDEX_BATCH_SIZE = 1000;
+    private static final int DELETE_BATCH_SIZE = 1000;
 
     private final ProductRepository repository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxSearchResults;
+    // Shared by all sessions, which mostly look at the same first pages
+    private final ReadThroughCache<Product> cache;
+    private final RowCounter counter;
 
-    public ProductService(ProductRepository repository) {
+    public ProductService(ProductRepository repository, CategoryRepository categoryRepository,
+            ProductSearchIndex searchIndex, ApplicationEventPublisher eventPublisher,
+            @Value("${search.max-results:1000}") int maxSearchResults,
+            @Value("${cache.service.max-size:1000}") long cacheMaxSize,
+            @Value("${cache.service.max-entity-size:64MB}") DataSize cacheMaxEntitySize) {
         this.repository = repository;
+        this.categoryRepository = categoryRepository;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
+        this.maxSearchResults = maxSearchResults;
+        this.cache = new ReadThroughCache<>(cacheMaxSize, cacheMaxEntitySize, Product::copy,
+                product -> ReadThroughCache.length(product.getThumbnailProduct(), product.getThumbnailProductSmall()));
+        this.counter = new RowCounter(repository::count);
     }
 
+    @Timed("service.calls")
     public Optional<Product> get(Long id) {
-        return repository.findById(id);
+        return cache.get(id, repository::findById);
     }
 
+    /**
+     * Saves the product and moves it between the product totals of its old and
+     * new category, in the same transaction.
+     */
+    @Timed("service.calls")
+    @Transactional
     public Product update(Product entity) {
-        return repository.save(entity);
+        boolean insert = entity.getId() == null;
+        Long oldCategoryId = insert ? null : repository.findCategoryIdById(entity.getId()).orElse(null);
+        Product saved = repository.save(entity);
+        // The version is incremented when the transaction is flushed
+        cache.written(saved.getId(), saved::getVersion);
+        if (insert) {
+            counter.add(1);
+        }
+        Long newCategoryId = saved.getCategory() == null ? null : saved.getCategory().getId();
+        if (!Objects.equals(oldCategoryId, newCategoryId)) {
+            addToTotalProduct(oldCategoryId, -1);
+            addToTotalProduct(newCategoryId, 1);
+        }
+        repository.findRowById(saved.getId()).ifPresent(row -> afterCommit(() -> index(row)));
+        eventPublisher.publishEvent(new EntityChangedEvent(Product.class, saved.getId(),
+                insert ? EntityChangedEvent.Change.CREATED : EntityChangedEvent.Change.UPDATED));
+        return saved;
+    }
+
+    /**
+     * Inserts the given new products in one transaction, using batched inserts.
+     * Meant for bulk loads, the products should be reasonably few to be held in
+     * memory at once.
+     */
+    @Timed("service.calls")
+    @Transactional
+    public List<Product> createAll(List<Product> products) {
+        List<Product> saved = repository.saveAll(products);
+        counter.add(saved.size());
+        cache.invalidateQueries();
+        Map<Long, Long> perCategory = saved.stream().filter(product -> product.getCategory() != null)
+                .collect(Collectors.groupingBy(product -> product.getCategory().getId(), Collectors.counting()));
+        perCategory.forEach(this::addToTotalProduct);
+        List<Long> ids = saved.stream().map(Product::getId).collect(Collectors.toList());
+        List<ProductRow> rows = repository.findRowsAfter(ProductSpecifications.idIn(ids), null, Sort.unsorted(),
+                ids.size(), false);
+        afterCommit(() -> rows.forEach(this::index));
+        for (Long id : ids) {
+            eventPublisher.publishEvent(new EntityChangedEvent(Product.class, id, EntityChangedEvent.Change.CREATED));
+        }
+        return saved;
     }
 
+    @Timed("service.calls")
+    @Transactional
     public void delete(Long id) {
+        Long categoryId = repository.findCategoryIdById(id).orElse(null);
         repository.deleteById(id);
+        cache.deleted(id);
+        counter.add(-1);
+        addToTotalProduct(categoryId, -1);
+        afterCommit(() -> searchIndex.remove(id));
+        eventPublisher.publishEvent(new EntityChangedEvent(Product.class, id, EntityChangedEvent.Change.DELETED));
+    }
+
+    /**
+     * Deletes the given products, with one delete statement for up to
+     * {@value #DELETE_BATCH_SIZE} products instead of one per product.
+     * <p>
+     * The products are locked first and nothing is deleted unless all of them
+     * still have the version of the given rows.
+     *
+     * @throws ObjectOptimisticLockingFailureException
+     *             if a product has been updated or deleted since its row was read
+     */
+    @Timed("service.calls")
+    @Transactional
+    public void deleteAll(Collection<ProductRow> rows) {
+        Map<Long, Integer> versions = new HashMap<>();
+        rows.forEach(row -> versions.put(row.getId(), row.getVersion()));
+        List<Long> ids = new ArrayList<>(versions.keySet());
+        Map<Long, Long> perCategory = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += DELETE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + DELETE_BATCH_SIZE, ids.size()));
+            List<LockedProduct> locked = repository.lockAllById(batch);
+            if (locked.size() < batch.size()) {
+                Set<Long> found = locked.stream().map(LockedProduct::getId).collect(Collectors.toSet());
+                Long missing = batch.stream().filter(id -> !found.contains(id)).findFirst().orElseThrow();
+                throw new ObjectOptimisticLockingFailureException(Product.class, missing);
+            }
+            for (LockedProduct product : locked) {
+                if (product.getVersion() != versions.get(product.getId())) {
+                    throw new ObjectOptimisticLockingFailureException(Product.class, product.getId());
+                }
+                if (product.getCategoryId() != null) {
+                    perCategory.merge(product.getCategoryId(), 1L, Long::sum);
+                }
+            }
+            repository.deleteAllByIdInBatch(batch);
+        }
+        counter.add(-ids.size());
+        perCategory.forEach((categoryId, count) -> addToTotalProduct(categoryId, -count));
+        afterCommit(() -> ids.forEach(searchIndex::remove));
+        for (Long id : ids) {
+            cache.deleted(id);
+            eventPublisher.publishEvent(new EntityChangedEvent(Product.class, id, EntityChangedEvent.Change.DELETED));
+        }
+    }
+
+    private void addToTotalProduct(Long categoryId, long delta) {
+        if (categoryId != null) {
+            categoryRepository.addToTotalProduct(categoryId, delta);
+            eventPublisher.publishEvent(new CategoryTotalChangedEvent(categoryId));
+        }
     }
 
+    @Timed("service.calls")
     public Page<Product> list(Pageable pageable) {
         return repository.findAll(pageable);
     }
 
+    @Timed("service.calls")
     public Page<Product> list(Pageable pageable, Specification<Product> filter) {
         return repository.findAll(filter, pageable);
     }
 
-    public int count() {
-        return (int) repository.count();
+    /**
+     * Fetches one page of rows without counting the total number of rows, use
+     * {@link #count()} for that.
+     */
+    @Timed("service.calls")
+    public Slice<ProductRow> listRows(Pageable pageable) {
+        return listRows(pageable, null);
+    }
+
+    @Timed("service.calls")
+    public Slice<ProductRow> listRows(Pageable pageable, Specification<Product> filter) {
+        if (filter == null) {
+            return cache.query(() -> repository.findRows(null, pageable, true), "rows", pageable);
+        }
+        return repository.findRows(filter, pageable, true);
+    }
+
+    /**
+     * Fetches the rows following the given row, see
+     * {@link ProductRepositoryCustom#findRowsAfter(Specification, ProductRow, Sort, int, boolean)}.
+     */
+    @Timed("service.calls")
+    public List<ProductRow> listRowsAfter(ProductRow after, Sort sort, int limit) {
+        return listRowsAfter(after, sort, limit, null);
+    }
+
+    @Timed("service.calls")
+    public List<ProductRow> listRowsAfter(ProductRow after, Sort sort, int limit, Specification<Product> filter) {
+        if (filter == null) {
+            // The rows that follow depend on the sort values of the row, which the
+            // caller may hold from before a write, not only on its id
+            return cache.query(() -> repository.findRowsAfter(null, after, sort, limit, true), "rowsAfter",
+                    seekKey(after, sort), sort, limit);
+        }
+        return repository.findRowsAfter(filter, after, sort, limit, true);
+    }
+
+    /**
+     * Searches the products by their product and category names, see
+     * {@link ProductSearchIndex}.
+     */
+    @Timed("service.calls")
+    public Slice<ProductRow> search(String text, Pageable pageable) {
+        // Each search matches different ids, not worth a query cache entry
+        return repository.findRows(searchFilter(text), pageable, false);
+    }
+
+    /**
+     * Returns a filter matching the best results of a search by product and
+     * category names, to be used with the list and count methods.
+     */
+    public Specification<Product> searchFilter(String text) {
+        // The index is searched whenever the filter is applied, so that results
+        // include changes made after the filter was created
+        return (root, query, cb) -> ProductSpecifications.idIn(searchIndex.search(text, maxSearchResults))
+                .toPredicate(root, query, cb);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndex.clear();
+        List<ProductRow> rows = repository.findRowsAfter(null, null, Sort.unsorted(), SEARCH_INDEX_BATCH_SIZE, false);
+        while (!rows.isEmpty()) {
+            rows.forEach(this::index);
+            rows = repository.findRowsAfter(null, rows.get(rows.size() - 1), Sort.unsorted(),
+                    SEARCH_INDEX_BATCH_SIZE, false);
+        }
+    }
+
+    /**
+     * Updates the search index and the cached rows for the products of the
+     * given category, needed when the name of the category changes.
+     * <p>
+     * Runs in a transaction of its own, as it is called once the rename has
+     * committed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void reindexCategory(Long categoryId) {
+        cache.invalidateQueries();
+        Specification<Product> filter = ProductSpecifications.inCategory(categoryId);
+        List<ProductRow> rows = repository.findRowsAfter(filter, null, Sort.unsorted(), SEARCH_INDEX_BATCH_SIZE,
+                false);
+        while (!rows.isEmpty()) {
+            for (ProductRow row : rows) {
+                index(row);
+                eventPublisher.publishEvent(
+                        new EntityChangedEvent(Product.class, row.getId(), EntityChangedEvent.Change.UPDATED));
+            }
+            rows = repository.findRowsAfter(filter, rows.get(rows.size() - 1), Sort.unsorted(),
+                    SEARCH_INDEX_BATCH_SIZE, false);
+        }
+    }
+
+    /**
+     * Passes all rows matching the given filter to the given action, in the
+     * order of their ids, without holding more than {@code fetchSize} of them
+     * in memory.
+     */
+    @Transactional(readOnly = true)
+    public void forEachRow(Specification<Product> filter, int fetchSize, Consumer<ProductRow> action) {
+        try (Stream<ProductRow> rows = repository.streamRows(filter, fetchSize)) {
+            rows.forEach(action);
+        }
+    }
+
+    /**
+     * Returns the values of the given row that the seek after it starts from:
+     * those of the sort properties followed by the id.
+     */
+    private static List<Object> seekKey(ProductRow after, Sort sort) {
+        if (after == null) {
+            return null;
+        }
+        BeanWrapper values = new BeanWrapperImpl(after);
+        List<Object> key = new ArrayList<>();
+        for (Sort.Order order : ProductRepositoryCustomImpl.withIdTieBreaker(sort)) {
+            key.add(values.getPropertyValue(order.getProperty()));
+        }
+        return key;
+    }
+
+    private void index(ProductRow row) {
+        searchIndex.put(row.getId(), row.getNameProduct(), row.getNameCategory());
+    }
+
+    /**
+     * Runs the given change of the search index once the current transaction
+     * commits, so that a rolled back write leaves the index as it was.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @Timed("service.calls")
+    public Optional<ProductRow> getRow(Long id) {
+        return cache.query(() -> repository.findRowById(id), "row", id);
+    }
+
+    public Optional<Integer> getVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Timed("service.calls")
+    public Optional<byte[]> getThumbnail(Long id) {
+        return repository.findThumbnailById(id);
+    }
+
+    @Timed("service.calls")
+    public Optional<byte[]> getSmallThumbnail(Long id) {
+        return repository.findSmallThumbnailById(id);
+    }
+
+    /**
+     * Returns the number of products, without counting them on every call.
+     */
+    public long count() {
+        return counter.get();
+    }
+
+    @Timed("service.calls")
+    public long count(Specification<Product> filter) {
+        if (filter == null) {
+            return count();
+        }
+        return repository.count(filter);
+    }
+
+    @Scheduled(fixedDelayString = "${count.refresh-interval:PT10M}",
+            initialDelayString = "${count.refresh-interval:PT10M}")
+    public void refreshCount() {
+        counter.refresh();
+    }
+
+    /**
+     * Publishes the hit and miss counts of the service cache.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cache.bindTo(registry, "products");
     }
 
 }
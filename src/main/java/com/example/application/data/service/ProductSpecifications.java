@@ -0,0 +1,49 @@
+package com.example.application.data.service;
+
+import com.example.application.data.entity.Product;
+import java.math.BigDecimal;
+import java.util.Collection;
+import javax.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filters that can be combined and passed to the {@link ProductService} list
+ * and count methods.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    /**
+     * Matches products in the category with the given id.
+     */
+    public static Specification<Product> inCategory(Long categoryId) {
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    /**
+     * Matches products with a price within the given range.
+     *
+     * @param min
+     *            the lowest matching price, or {@code null} for no lower bound
+     * @param max
+     *            the highest matching price, or {@code null} for no upper bound
+     */
+    public static Specification<Product> priceBetween(BigDecimal min, BigDecimal max) {
+        return (root, query, cb) -> {
+            Path<BigDecimal> price = root.get("priceProduct");
+            if (min == null) {
+                return max == null ? null : cb.lessThanOrEqualTo(price, max);
+            }
+            return max == null ? cb.greaterThanOrEqualTo(price, min) : cb.between(price, min, max);
+        };
+    }
+
+    /**
+     * Matches the products with the given ids.
+     */
+    public static Specification<Product> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+}
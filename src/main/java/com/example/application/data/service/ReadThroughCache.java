@@ -0,0 +1,192 @@
+package com.example.application.data.service;
+
+import com.example.application.data.entity.AbstractEntity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * A bounded read-through cache in front of the reads of a service.
+ * <p>
+ * Entities are cached by id, limited by their size in bytes rather than their
+ * number because they carry their thumbnails. Writes record the version they committed, and an
+ * entity older than the last written version is never served from or put into
+ * the cache, so a read racing with an update cannot bring back the state from
+ * before the update. Views modify the entities they edit, so every read gets its
+ * own copy of the cached entity.
+ * <p>
+ * Query results are cached by their arguments together with a generation that
+ * every write increments. Results cached before a write are thus never looked up
+ * again and simply age out.
+ * <p>
+ * Writes take effect once the surrounding transaction completes, so that other
+ * threads cannot cache data that is about to change. Reads within a read-write
+ * transaction bypass the cache so that they see the writes of the transaction.
+ */
+class ReadThroughCache<E extends AbstractEntity> {
+
+    // Counted for the fields of every entity, on top of its byte arrays
+    private static final int ENTITY_OVERHEAD = 1024;
+
+    private final Cache<Long, E> entities;
+    private final Cache<Long, Integer> writtenVersions;
+    private final Cache<List<Object>, Object> queries;
+    private final UnaryOperator<E> copier;
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param maxSize
+     *            the maximum number of query results and of written versions
+     * @param maxEntityBytes
+     *            the maximum size of the cached entities
+     * @param copier
+     *            copies an entity for each read
+     * @param entityBytes
+     *            returns the size of the byte arrays of an entity
+     */
+    ReadThroughCache(long maxSize, DataSize maxEntityBytes, UnaryOperator<E> copier, ToIntFunction<E> entityBytes) {
+        this.entities = Caffeine.newBuilder().maximumWeight(maxEntityBytes.toBytes())
+                .<Long, E>weigher((id, entity) -> ENTITY_OVERHEAD + entityBytes.applyAsInt(entity)).recordStats()
+                .build();
+        this.writtenVersions = Caffeine.newBuilder().maximumSize(maxSize).build();
+        this.queries = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        this.copier = copier;
+    }
+
+    /**
+     * Returns a copy of the cached entity with the given id, loading it first if
+     * it is not cached.
+     */
+    Optional<E> get(Long id, Function<Long, Optional<E>> loader) {
+        if (isInWriteTransaction()) {
+            return loader.apply(id);
+        }
+        E entity = entities.getIfPresent(id);
+        if (entity == null || isStale(entity)) {
+            Optional<E> loaded = loader.apply(id);
+            if (loaded.isEmpty() || isStale(loaded.get())) {
+                return loaded;
+            }
+            entity = loaded.get();
+            entities.put(id, entity);
+        }
+        return Optional.of(copier.apply(entity));
+    }
+
+    /**
+     * Returns the cached result of the query with the given arguments, running
+     * the query first if the result is not cached. The result must not be
+     * modified by the caller.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T query(Supplier<T> loader, Object... arguments) {
+        if (isInWriteTransaction()) {
+            return loader.get();
+        }
+        List<Object> key = new ArrayList<>(Arrays.asList(arguments));
+        key.add(generation.get());
+        return (T) queries.get(key, k -> loader.get());
+    }
+
+    /**
+     * Invalidates the given entity and all query results once the current
+     * transaction completes.
+     *
+     * @param version
+     *            supplies the version of the entity after the write, read when
+     *            the transaction has completed
+     */
+    void written(Long id, Supplier<Integer> version) {
+        afterCompletion(() -> {
+            writtenVersions.asMap().merge(id, version.get(), Math::max);
+            entities.invalidate(id);
+            generation.incrementAndGet();
+        });
+    }
+
+    /**
+     * Invalidates the given entity for good and all query results once the
+     * current transaction completes.
+     */
+    void deleted(Long id) {
+        written(id, () -> Integer.MAX_VALUE);
+    }
+
+    /**
+     * Invalidates the given entity and all query results once the current
+     * transaction completes, for writes that did not go through the entity.
+     */
+    void invalidate(Long id) {
+        afterCompletion(() -> {
+            entities.invalidate(id);
+            generation.incrementAndGet();
+        });
+    }
+
+    /**
+     * Invalidates all query results once the current transaction completes.
+     */
+    void invalidateQueries() {
+        afterCompletion(generation::incrementAndGet);
+    }
+
+    /**
+     * Publishes the hit and miss counts of the entity cache under the given
+     * name, and those of the query cache under the name with a ".queries"
+     * suffix.
+     */
+    void bindTo(MeterRegistry registry, String name) {
+        Tags tags = Tags.of("cache.manager", "service");
+        CaffeineCacheMetrics.monitor(registry, entities, name, tags);
+        CaffeineCacheMetrics.monitor(registry, queries, name + ".queries", tags);
+    }
+
+    /**
+     * Returns the combined length of the given arrays, any of which may be
+     * {@code null}.
+     */
+    static int length(byte[]... arrays) {
+        int length = 0;
+        for (byte[] array : arrays) {
+            length += array == null ? 0 : array.length;
+        }
+        return length;
+    }
+
+    private boolean isStale(E entity) {
+        Integer written = writtenVersions.getIfPresent(entity.getId());
+        return written != null && entity.getVersion() < written;
+    }
+
+    private static boolean isInWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
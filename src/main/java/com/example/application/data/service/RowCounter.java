@@ -0,0 +1,73 @@
+package com.example.application.data.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the number of rows of a table so that it does not have to be counted on
+ * every call.
+ * <p>
+ * The table is counted when the number is first needed and whenever
+ * {@link #refresh()} is called, which corrects the number for rows written
+ * around the service. In between, inserts and deletes adjust the number once
+ * their transaction has committed.
+ */
+class RowCounter {
+
+    private static final long UNKNOWN = -1;
+
+    private final LongSupplier counter;
+    private final AtomicLong count = new AtomicLong(UNKNOWN);
+    private final AtomicLong writes = new AtomicLong();
+
+    RowCounter(LongSupplier counter) {
+        this.counter = counter;
+    }
+
+    long get() {
+        long current = count.get();
+        if (current == UNKNOWN) {
+            current = refresh();
+        }
+        return current;
+    }
+
+    /**
+     * Counts the table again.
+     *
+     * @return the number of rows
+     */
+    long refresh() {
+        long before = writes.get();
+        long counted = counter.getAsLong();
+        // A write committed while counting may or may not have been counted, the
+        // next refresh takes care of it
+        if (writes.get() == before) {
+            count.set(counted);
+        }
+        return counted;
+    }
+
+    /**
+     * Adds the given number of rows once the current transaction commits.
+     */
+    void add(long delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(delta);
+            }
+        });
+    }
+
+    private void apply(long delta) {
+        writes.incrementAndGet();
+        count.updateAndGet(current -> current == UNKNOWN ? UNKNOWN : current + delta);
+    }
+}
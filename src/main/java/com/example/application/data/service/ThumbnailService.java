@@ -0,0 +1,138 @@
+package com.example.application.data.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Turns uploaded images into the fixed size thumbnails stored on products and
+ * categories.
+ * <p>
+ * The upload is decoded once and scaled down to a {@value #SMALL_SIZE}px variant
+ * used by the grids and a {@value #LARGE_SIZE}px variant used by the editor
+ * preview. The original upload is not kept, so the size of what ends up in the
+ * database does not depend on what users upload.
+ */
+@Service
+public class ThumbnailService {
+
+    public static final int SMALL_SIZE = 64;
+    public static final int LARGE_SIZE = 256;
+
+    private final int maxUploadSize;
+    private final long maxPixels;
+
+    public ThumbnailService(@Value("${thumbnail.max-upload-size:10485760}") int maxUploadSize,
+            @Value("${thumbnail.max-pixels:50000000}") long maxPixels) {
+        this.maxUploadSize = maxUploadSize;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Returns the largest accepted upload, in bytes.
+     */
+    public int getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    /**
+     * Decodes the given image and creates its thumbnails.
+     *
+     * @param input
+     *            the uploaded image, not closed by this method
+     * @return the thumbnails of the image
+     * @throws IOException
+     *             if the input is not a supported image or is too large to decode
+     */
+    public Thumbnails createThumbnails(InputStream input) throws IOException {
+        BufferedImage image = decode(input);
+        return new Thumbnails(encode(scale(image, SMALL_SIZE)), encode(scale(image, LARGE_SIZE)));
+    }
+
+    BufferedImage decode(InputStream input) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+            Iterator<ImageReader> readers = stream == null ? null : ImageIO.getImageReaders(stream);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Image is too large: " + width + "x" + height);
+                }
+                // Skip source pixels while decoding so that large photos never
+                // have to be held in memory at full resolution. The longest side
+                // decides, as it does when scaling, so that panoramas are
+                // subsampled as well
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * LARGE_SIZE));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int size) {
+        double factor = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        boolean alpha = image.getColorModel().hasAlpha();
+        BufferedImage scaled = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        // JPEG is a lot smaller for photos but cannot store transparency
+        String format = image.getColorModel().hasAlpha() ? "png" : "jpg";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, output)) {
+            throw new IOException("No image writer for " + format);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * The thumbnails generated from one image.
+     */
+    public static class Thumbnails {
+
+        private final byte[] small;
+        private final byte[] large;
+
+        Thumbnails(byte[] small, byte[] large) {
+            this.small = small;
+            this.large = large;
+        }
+
+        public byte[] getSmall() {
+            return small;
+        }
+        public byte[] getLarge() {
+            return large;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.application.views;
+
+import com.example.application.data.entity.AbstractEntity;
+import com.example.application.data.entity.Category;
+import com.example.application.data.service.CategoryTotalChangedEvent;
+import com.example.application.data.service.EntityChangedEvent;
+import com.vaadin.flow.shared.Registration;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Sends committed entity changes to the views of all sessions, which push them
+ * to the browser.
+ * <p>
+ * Changes are collected for a short interval and delivered as one batch per
+ * entity type, so that a bulk write results in a single update per view instead
+ * of one per row. A batch lists the changed ids so that views can refresh just
+ * those items, unless rows were created or deleted or too many rows changed,
+ * in which case views are asked to refresh everything.
+ */
+@Component
+public class DataChangeBroadcaster {
+
+    private static final int MAX_REFRESHED_ITEMS = 100;
+
+    private static final Logger logger = LoggerFactory.getLogger(DataChangeBroadcaster.class);
+
+    private final TaskScheduler scheduler;
+    private final Duration interval;
+    private final Map<Class<? extends AbstractEntity>, List<Consumer<Changes>>> listeners = new ConcurrentHashMap<>();
+    private Map<Class<? extends AbstractEntity>, Changes> pending = new HashMap<>();
+
+    public DataChangeBroadcaster(TaskScheduler scheduler,
+            @Value("${push.batch-interval:500ms}") Duration interval) {
+        this.scheduler = scheduler;
+        this.interval = interval;
+    }
+
+    /**
+     * Registers a listener for the changes of the given entity type. The listener
+     * is called from a background thread and has to use {@code UI.access} to
+     * update the UI.
+     */
+    public Registration register(Class<? extends AbstractEntity> entityType, Consumer<Changes> listener) {
+        List<Consumer<Changes>> typeListeners = listeners.computeIfAbsent(entityType,
+                type -> new CopyOnWriteArrayList<>());
+        typeListeners.add(listener);
+        return () -> typeListeners.remove(listener);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        add(event.getEntityType(), event.getId(), event.getChange() != EntityChangedEvent.Change.UPDATED);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTotalChanged(CategoryTotalChangedEvent event) {
+        add(Category.class, event.getCategoryId(), false);
+    }
+
+    private synchronized void add(Class<? extends AbstractEntity> entityType, Long id, boolean structural) {
+        if (pending.isEmpty()) {
+            scheduler.schedule(this::flush, Instant.now().plus(interval));
+        }
+        Changes changes = pending.computeIfAbsent(entityType, type -> new Changes());
+        if (structural || changes.ids.size() >= MAX_REFRESHED_ITEMS) {
+            changes.refreshAll = true;
+            changes.ids.clear();
+        } else if (!changes.refreshAll) {
+            changes.ids.add(id);
+        }
+    }
+
+    private void flush() {
+        Map<Class<? extends AbstractEntity>, Changes> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        batch.forEach((entityType, changes) -> {
+            for (Consumer<Changes> listener : listeners.getOrDefault(entityType, List.of())) {
+                try {
+                    listener.accept(changes);
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to deliver data changes", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * The changes of one entity type within one batch.
+     */
+    public static class Changes {
+
+        private final Set<Long> ids = new HashSet<>();
+        private boolean refreshAll;
+
+        /**
+         * Returns the ids of the updated entities, empty if
+         * {@link #isRefreshAll()}.
+         */
+        public Set<Long> getIds() {
+            return Collections.unmodifiableSet(ids);
+        }
+
+        /**
+         * Returns whether all items have to be refreshed, because entities were
+         * created or deleted or too many were updated.
+         */
+        public boolean isRefreshAll() {
+            return refreshAll;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.application.views;
+
+import com.example.application.data.StatementCounter;
+import com.vaadin.flow.component.HasElement;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.HandlerHelper.RequestType;
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.SynchronizedRequestHandler;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.shared.ApplicationConstants;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Traces the requests the browser sends to the UI: the view they are handled
+ * by, how long they take, how many SQL statements they run and how many bytes
+ * they respond with.
+ * <p>
+ * Requests over any of the configured thresholds are logged as warnings, all
+ * others at debug level. Durations, statement counts and response sizes are
+ * also recorded as metrics per view. When statements are recorded, the warnings
+ * also list the statements a request repeated, which points at associations
+ * loaded one row at a time.
+ * <p>
+ * The tracer wraps the Vaadin servlet as a filter, which times the request and
+ * counts the bytes of the response, whether written to its stream or its
+ * writer, and hooks into the Vaadin service to tell the view. The view is the
+ * one the request arrives at, or the one it navigates to. Only requests made
+ * over HTTP can be traced, so changes pushed by the server are not, and the
+ * client sends its requests over XHR rather than the websocket.
+ */
+@Component
+public class RequestTracer extends OncePerRequestFilter implements VaadinServiceInitListener {
+
+    private static final String NO_VIEW = "none";
+    private static final String REQUEST_TYPE_PREFIX = ApplicationConstants.REQUEST_TYPE_PARAMETER + "=";
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTracer.class);
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final Duration slowThreshold;
+    private final long statementThreshold;
+    private final DataSize responseSizeThreshold;
+    private final boolean recordStatements;
+
+    public RequestTracer(MeterRegistry registry, @Value("${trace.slow-threshold:500ms}") Duration slowThreshold,
+            @Value("${trace.statement-threshold:50}") long statementThreshold,
+            @Value("${trace.response-size-threshold:256KB}") DataSize responseSizeThreshold,
+            @Value("${trace.record-statements:false}") boolean recordStatements) {
+        this.registry = registry;
+        this.slowThreshold = slowThreshold;
+        this.statementThreshold = statementThreshold;
+        this.responseSizeThreshold = responseSizeThreshold;
+        this.recordStatements = recordStatements;
+    }
+
+    @Override
+    public void serviceInit(ServiceInitEvent event) {
+        // Added request handlers run before those of Vaadin
+        event.addRequestHandler(new SynchronizedRequestHandler() {
+            @Override
+            protected boolean canHandleRequest(VaadinRequest request) {
+                return CURRENT.get() != null && request.getParameter(ApplicationConstants.UI_ID_PARAMETER) != null;
+            }
+
+            @Override
+            public boolean synchronizedHandleRequest(VaadinSession session, VaadinRequest request,
+                    VaadinResponse response) {
+                UI ui = findUI(session, request.getParameter(ApplicationConstants.UI_ID_PARAMETER));
+                if (ui != null) {
+                    CURRENT.get().view = viewName(ui.getInternals().getActiveRouterTargetsChain());
+                }
+                return false;
+            }
+        });
+        event.getSource().addUIInitListener(e -> e.getUI().addAfterNavigationListener(navigation -> {
+            Trace trace = CURRENT.get();
+            if (trace != null) {
+                trace.view = viewName(navigation.getActiveChain());
+            }
+        }));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String type = requestType(request);
+        return !RequestType.UIDL.getIdentifier().equals(type) && !RequestType.INIT.getIdentifier().equals(type);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Trace trace = new Trace(requestType(request));
+        CountingResponse countingResponse = new CountingResponse(response);
+        StatementCounter.Recording recording = recordStatements ? StatementCounter.record() : null;
+        CURRENT.set(trace);
+        try {
+            chain.doFilter(request, countingResponse);
+        } finally {
+            CURRENT.remove();
+            countingResponse.flushWriter();
+            finish(trace, countingResponse.count, recording == null ? List.of() : recording.stop());
+        }
+    }
+
+    private void finish(Trace trace, long bytes, List<String> recorded) {
+        long nanos = System.nanoTime() - trace.start;
+        long statements = StatementCounter.get() - trace.statements;
+        Timer.builder("vaadin.requests").description("UI requests").tags("type", trace.type, "view", trace.view)
+                .register(registry).record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("vaadin.request.statements").description("SQL statements run by UI requests")
+                .baseUnit("statements").tags("type", trace.type, "view", trace.view).register(registry)
+                .record(statements);
+        DistributionSummary.builder("vaadin.response.size").description("Sizes of UI responses")
+                .baseUnit(BaseUnits.BYTES).tags("type", trace.type, "view", trace.view).register(registry)
+                .record(bytes);
+        boolean exceeded = nanos > slowThreshold.toNanos() || statements > statementThreshold
+                || bytes > responseSizeThreshold.toBytes();
+        if (exceeded || logger.isDebugEnabled()) {
+            String message = "{} request to {} took {} ms, ran {} SQL statements and responded with {} bytes";
+            Object[] arguments = { trace.type, trace.view, TimeUnit.NANOSECONDS.toMillis(nanos), statements, bytes };
+            if (exceeded) {
+                logger.warn(message, arguments);
+                Map<String, Long> repeated = StatementCounter.repeated(recorded);
+                if (!repeated.isEmpty()) {
+                    logger.warn("Statements repeated by the {} request to {}: {}", trace.type, trace.view, repeated);
+                }
+            } else {
+                logger.debug(message, arguments);
+            }
+        }
+    }
+
+    private static String requestType(HttpServletRequest request) {
+        // Read from the query string, reading parameters could consume the body
+        // of a form post before it reaches the servlet
+        String query = request.getQueryString();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(REQUEST_TYPE_PREFIX)) {
+                return parameter.substring(REQUEST_TYPE_PREFIX.length());
+            }
+        }
+        return null;
+    }
+
+    private static UI findUI(VaadinSession session, String uiId) {
+        try {
+            return session.getUIById(Integer.parseInt(uiId));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String viewName(List<HasElement> chain) {
+        // The chain starts with the view, followed by its layouts
+        return chain.isEmpty() ? NO_VIEW : chain.get(0).getClass().getSimpleName();
+    }
+
+    private static class Trace {
+
+        private final String type;
+        private final long start = System.nanoTime();
+        private final long statements = StatementCounter.get();
+        private String view = NO_VIEW;
+
+        Trace(String type) {
+            this.type = type;
+        }
+    }
+
+    private static class CountingResponse extends HttpServletResponseWrapper {
+
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private long count;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        count++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        count += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        delegate.setWriteListener(listener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                // Encodes the characters here, so that the bytes pass the counting stream
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            super.flushBuffer();
+        }
+
+        void flushWriter() {
+            // The container cannot see the characters buffered by this writer
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+    }
+}
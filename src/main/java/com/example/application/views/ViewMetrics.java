@@ -0,0 +1,71 @@
+package com.example.application.views;
+
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records metrics of the views: the number of open sessions and UIs, the latency
+ * and number of rows of grid fetches and the size of uploads.
+ */
+@Component
+public class ViewMetrics implements VaadinServiceInitListener {
+
+    private final MeterRegistry registry;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicInteger activeUis = new AtomicInteger();
+
+    public ViewMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("vaadin.sessions.active", activeSessions, AtomicInteger::get)
+                .description("Open Vaadin sessions").register(registry);
+        Gauge.builder("vaadin.uis.active", activeUis, AtomicInteger::get)
+                .description("Open UIs, one per browser tab").register(registry);
+    }
+
+    @Override
+    public void serviceInit(ServiceInitEvent event) {
+        event.getSource().addSessionInitListener(e -> activeSessions.incrementAndGet());
+        event.getSource().addSessionDestroyListener(e -> activeSessions.decrementAndGet());
+        event.getSource().addUIInitListener(e -> {
+            activeUis.incrementAndGet();
+            // A UI is detached when it is closed or its session ends
+            e.getUI().addDetachListener(detach -> activeUis.decrementAndGet());
+        });
+    }
+
+    /**
+     * Wraps the fetch callback of a grid so that the latency of every fetch and
+     * the number of rows it returns are recorded, tagged with the given grid
+     * name.
+     */
+    public <T, F> CallbackDataProvider.FetchCallback<T, F> metered(String grid,
+            CallbackDataProvider.FetchCallback<T, F> callback) {
+        Timer latency = Timer.builder("grid.fetch").description("Grid fetches").tag("grid", grid)
+                .register(registry);
+        DistributionSummary rows = DistributionSummary.builder("grid.fetch.rows")
+                .description("Rows returned by grid fetches").baseUnit("rows").tag("grid", grid).register(registry);
+        return query -> {
+            List<T> items = latency.record(() -> callback.fetch(query).collect(Collectors.toList()));
+            rows.record(items.size());
+            return items.stream();
+        };
+    }
+
+    /**
+     * Records the size of a completed upload of the given kind.
+     */
+    public void recordUpload(String kind, long bytes) {
+        DistributionSummary.builder("upload.size").description("Sizes of completed uploads")
+                .baseUnit(BaseUnits.BYTES).tag("kind", kind).register(registry).record(bytes);
+    }
+}
@@ -1,8 +1,19 @@
 package com.example.application.views.category;
 
+import com.example.application.components.upload.TempFileReceiver;
 import com.example.application.data.entity.Category;
+import com.example.application.data.service.CategoryRow;
 import com.example.application.data.service.CategoryService;
+import com.example.application.data.service.CsvExportService;
+import com.example.application.data.service.ThumbnailService;
+import com.example.application.data.service.ThumbnailService.Thumbnails;
+import com.example.application.views.DataChangeBroadcaster;
+import com.example.application.views.DataChangeBroadcaster.Changes;
 import com.example.application.views.MainLayout;
+import com.example.application.views.ViewMetrics;
+import com.example.application.web.ThumbnailController;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.Tag;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
@@ -10,9 +21,11 @@ import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.formlayout.FormLayout;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.Image;
 import com.vaadin.flow.component.html.Label;
+import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.Notification.Position;
 import com.vaadin.flow.component.notification.NotificationVariant;
@@ -22,17 +35,20 @@ import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.data.binder.BeanValidationBinder;
 import com.vaadin.flow.data.binder.ValidationException;
+import com.vaadin.flow.data.converter.StringToLongConverter;
 import com.vaadin.flow.data.renderer.LitRenderer;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.*;
 import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.shared.Registration;
 import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.util.Base64;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 @PageTitle("Category")
@@ -44,7 +60,7 @@ public class CategoryView extends Div implements BeforeEnterObserver {
     private final String CATEGORY_ID = "categoryID";
     private final String CATEGORY_EDIT_ROUTE_TEMPLATE = "category/%s/edit";
 
-    private final Grid<Category> grid = new Grid<>(Category.class, false);
+    private final Grid<CategoryRow> grid = new Grid<>(CategoryRow.class, false);
 
     private TextField nameCategory;
     private TextField slugProduct;
@@ -60,9 +76,19 @@ public class CategoryView extends Div implements BeforeEnterObserver {
     private Category category;
 
     private final CategoryService categoryService;
-
-    public CategoryView(CategoryService categoryService) {
+    private final ThumbnailService thumbnailService;
+    private final CsvExportService exportService;
+    private final DataChangeBroadcaster broadcaster;
+    private final ViewMetrics viewMetrics;
+    private Registration broadcasterRegistration;
+
+    public CategoryView(CategoryService categoryService, ThumbnailService thumbnailService,
+            CsvExportService exportService, DataChangeBroadcaster broadcaster, ViewMetrics viewMetrics) {
         this.categoryService = categoryService;
+        this.thumbnailService = thumbnailService;
+        this.exportService = exportService;
+        this.broadcaster = broadcaster;
+        this.viewMetrics = viewMetrics;
         addClassNames("category-view");
         // Create UI
         SplitLayout splitLayout = new SplitLayout();
@@ -75,20 +101,15 @@ public class CategoryView extends Div implements BeforeEnterObserver {
         grid.addColumn("nameCategory").setAutoWidth(true);
         grid.addColumn("slugProduct").setAutoWidth(true);
         grid.addColumn("totalProduct").setAutoWidth(true);
-        LitRenderer<Category> thumbnailSlugRenderer = LitRenderer.<Category>of(
+        LitRenderer<CategoryRow> thumbnailSlugRenderer = LitRenderer.<CategoryRow>of(
                         "<span style='border-radius: 50%; overflow: hidden; display: flex; align-items: center; justify-content: center; width: 64px; height: 64px'><img style='max-width: 100%' src=${item.thumbnailSlug} /></span>")
-                .withProperty("thumbnailSlug", item -> {
-                    if (item != null && item.getThumbnailSlug() != null) {
-                        return "data:image;base64," + Base64.getEncoder().encodeToString(item.getThumbnailSlug());
-                    } else {
-                        return "";
-                    }
-                });
+                .withProperty("thumbnailSlug", ThumbnailController::categoryThumbnailUrl);
         grid.addColumn(thumbnailSlugRenderer).setHeader("Thumbnail Category").setWidth("96px").setFlexGrow(0);
 
-        grid.setItems(query -> categoryService.list(
+        grid.setItems(viewMetrics.metered("categories", query -> categoryService.listRows(
                         PageRequest.of(query.getPage(), query.getPageSize(), VaadinSpringDataHelpers.toSpringDataSort(query)))
-                .stream());
+                .stream()),
+                query -> (int) Math.min(categoryService.count(), Integer.MAX_VALUE));
         grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
 
         // when a row is selected or deselected, populate form
@@ -105,6 +126,10 @@ public class CategoryView extends Div implements BeforeEnterObserver {
         binder = new BeanValidationBinder<>(Category.class);
 
         // Bind fields. This is where you'd define e.g. validation rules
+        // The total is counted from the products, so it is only shown
+        binder.forField(totalProduct).withNullRepresentation("")
+                .withConverter(new StringToLongConverter("Total product must be a number"))
+                .bindReadOnly(Category::getTotalProduct);
 
         binder.bindInstanceFields(this);
 
@@ -132,6 +157,10 @@ public class CategoryView extends Div implements BeforeEnterObserver {
                         "Error updating the data. Somebody else has updated the record while you were making changes.");
                 n.setPosition(Position.MIDDLE);
                 n.addThemeVariants(NotificationVariant.LUMO_ERROR);
+            } catch (DataIntegrityViolationException exception) {
+                Notification n = Notification.show("The category still has products and cannot be deleted.");
+                n.setPosition(Position.MIDDLE);
+                n.addThemeVariants(NotificationVariant.LUMO_ERROR);
             } catch (ValidationException validationException) {
                 Notification.show("Failed to update the data. Check again that all values are valid");
             }
@@ -217,25 +246,52 @@ public class CategoryView extends Div implements BeforeEnterObserver {
         Div wrapper = new Div();
         wrapper.setClassName("grid-wrapper");
         splitLayout.addToPrimary(wrapper);
-        wrapper.add(grid);
+        HorizontalLayout toolbarLayout = new HorizontalLayout(createExportLink());
+        toolbarLayout.setClassName("toolbar-layout");
+        wrapper.add(toolbarLayout, grid);
+    }
+
+    private Anchor createExportLink() {
+        StreamResource resource = new StreamResource("categories.csv",
+                (output, session) -> exportService.exportCategories(output));
+        resource.setContentType("text/csv");
+        Anchor link = new Anchor(resource, "");
+        link.getElement().setAttribute("download", true);
+        link.add(new Button("Export CSV", VaadinIcon.DOWNLOAD.create()));
+        return link;
     }
 
     private void attachImageUpload(Upload upload, Image preview) {
-        ByteArrayOutputStream uploadBuffer = new ByteArrayOutputStream();
+        TempFileReceiver receiver = new TempFileReceiver(thumbnailService.getMaxUploadSize());
         upload.setAcceptedFileTypes("image/*");
-        upload.setReceiver((fileName, mimeType) -> {
-            uploadBuffer.reset();
-            return uploadBuffer;
+        upload.setMaxFileSize(thumbnailService.getMaxUploadSize());
+        upload.setReceiver(receiver);
+        upload.addFileRejectedListener(e -> Notification.show(e.getErrorMessage()));
+        upload.addFailedListener(e -> {
+            receiver.discard();
+            Notification.show("Failed to upload the image");
         });
         upload.addSucceededListener(e -> {
+            viewMetrics.recordUpload("image", e.getContentLength());
+            Thumbnails thumbnails;
+            try (InputStream input = receiver.getInputStream()) {
+                thumbnails = thumbnailService.createThumbnails(input);
+            } catch (IOException exception) {
+                upload.clearFileList();
+                Notification.show("The uploaded file is not a supported image");
+                return;
+            } finally {
+                receiver.discard();
+            }
             StreamResource resource = new StreamResource(e.getFileName(),
-                    () -> new ByteArrayInputStream(uploadBuffer.toByteArray()));
+                    () -> new ByteArrayInputStream(thumbnails.getLarge()));
             preview.setSrc(resource);
             preview.setVisible(true);
             if (this.category == null) {
                 this.category = new Category();
             }
-            this.category.setThumbnailSlug(uploadBuffer.toByteArray());
+            this.category.setThumbnailSlug(thumbnails.getLarge());
+            this.category.setThumbnailSlugSmall(thumbnails.getSmall());
         });
         preview.setVisible(false);
     }
@@ -245,6 +301,29 @@ public class CategoryView extends Div implements BeforeEnterObserver {
         grid.getDataProvider().refreshAll();
     }
 
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        UI ui = attachEvent.getUI();
+        broadcasterRegistration = broadcaster.register(Category.class,
+                changes -> ui.access(() -> refreshChangedRows(changes)));
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        broadcasterRegistration.remove();
+        broadcasterRegistration = null;
+    }
+
+    private void refreshChangedRows(Changes changes) {
+        // Keeps the selection, the user may be editing one of the rows
+        if (changes.isRefreshAll()) {
+            grid.getDataProvider().refreshAll();
+        } else {
+            changes.getIds().forEach(id -> categoryService.getRow(id)
+                    .ifPresent(row -> grid.getDataProvider().refreshItem(row)));
+        }
+    }
+
     private void clearForm() {
         populateForm(null);
     }
@@ -257,8 +336,7 @@ public class CategoryView extends Div implements BeforeEnterObserver {
             this.thumbnailSlug.clearFileList();
             this.thumbnailSlugPreview.setSrc("");
         } else {
-            this.thumbnailSlugPreview
-                    .setSrc("data:image;base64," + Base64.getEncoder().encodeToString(value.getThumbnailSlug()));
+            this.thumbnailSlugPreview.setSrc(ThumbnailController.categoryThumbnailUrl(value));
         }
 
     }
@@ -0,0 +1,82 @@
+package com.example.application.views.product;
+
+import com.example.application.data.entity.Product;
+import com.example.application.data.service.ProductRow;
+import com.example.application.data.service.ProductService;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Fetches the product rows of the grid using keyset pagination where possible.
+ * <p>
+ * The grid asks for rows by offset. The last row of every fetch is remembered as
+ * the position of the offset following it, so scrolling on continues from that
+ * row instead of making the database skip all rows before the offset. Offsets
+ * that were not reached by scrolling, e.g. after dragging the scrollbar, are
+ * fetched by offset once and then continue with keyset pagination.
+ */
+class ProductRowFetchCallback implements CallbackDataProvider.FetchCallback<ProductRow, Void> {
+
+    private final ProductService productService;
+    private final Map<Integer, ProductRow> cursors = new HashMap<>();
+    private Sort cursorSort = Sort.unsorted();
+    private Specification<Product> filter;
+
+    ProductRowFetchCallback(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @Override
+    public Stream<ProductRow> fetch(Query<ProductRow, Void> query) {
+        Sort sort = VaadinSpringDataHelpers.toSpringDataSort(query);
+        if (!sort.equals(cursorSort)) {
+            reset();
+            cursorSort = sort;
+        }
+        int offset = query.getOffset();
+        List<ProductRow> rows;
+        if (offset == 0 || cursors.containsKey(offset)) {
+            rows = productService.listRowsAfter(cursors.get(offset), sort, query.getLimit(), filter);
+        } else {
+            rows = productService.listRows(PageRequest.of(query.getPage(), query.getPageSize(), sort), filter)
+                    .getContent();
+        }
+        if (!rows.isEmpty()) {
+            cursors.put(offset + rows.size(), rows.get(rows.size() - 1));
+        }
+        return rows.stream();
+    }
+
+    /**
+     * Returns the filter applied to the fetched rows, {@code null} if all rows
+     * are fetched.
+     */
+    Specification<Product> getFilter() {
+        return filter;
+    }
+
+    /**
+     * Sets the filter applied to the fetched rows, {@code null} to fetch all
+     * rows. The data provider has to be refreshed afterwards.
+     */
+    void setFilter(Specification<Product> filter) {
+        this.filter = filter;
+        reset();
+    }
+
+    /**
+     * Forgets all remembered positions, needed whenever rows may have been added
+     * or removed.
+     */
+    void reset() {
+        cursors.clear();
+    }
+}
@@ -1,38 +1,70 @@
 package com.example.application.views.product;
 
+import com.example.application.components.upload.TempFileReceiver;
+import com.example.application.data.entity.Category;
 import com.example.application.data.entity.Product;
+import com.example.application.data.service.CategoryRow;
+import com.example.application.data.service.CategoryService;
+import com.example.application.data.service.CsvExportService;
+import com.example.application.data.service.ProductImportService;
+import com.example.application.data.service.ProductImportService.ImportResult;
+import com.example.application.data.service.ProductRow;
 import com.example.application.data.service.ProductService;
+import com.example.application.data.service.ProductSpecifications;
+import com.example.application.data.service.ThumbnailService;
+import com.example.application.data.service.ThumbnailService.Thumbnails;
+import com.example.application.views.DataChangeBroadcaster;
+import com.example.application.views.DataChangeBroadcaster.Changes;
 import com.example.application.views.MainLayout;
+import com.example.application.views.ViewMetrics;
+import com.example.application.web.ThumbnailController;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.datepicker.DatePicker;
+import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.formlayout.FormLayout;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.Image;
 import com.vaadin.flow.component.html.Label;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.Notification.Position;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
 import com.vaadin.flow.component.splitlayout.SplitLayout;
+import com.vaadin.flow.component.textfield.BigDecimalField;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.data.binder.BeanValidationBinder;
+import com.vaadin.flow.data.binder.Result;
 import com.vaadin.flow.data.binder.ValidationException;
+import com.vaadin.flow.data.converter.Converter;
+import com.vaadin.flow.data.converter.StringToLongConverter;
 import com.vaadin.flow.data.renderer.LitRenderer;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.BeforeEnterEvent;
 import com.vaadin.flow.router.BeforeEnterObserver;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.server.StreamResource;
-import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
+import com.vaadin.flow.shared.Registration;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.util.Base64;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
+import java.util.Set;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 @PageTitle("Product")
@@ -42,13 +74,25 @@ public class ProductView extends Div implements BeforeEnterObserver {
     private final String PRODUCT_ID = "productID";
     private final String PRODUCT_EDIT_ROUTE_TEMPLATE = "product/%s/edit";
 
-    private final Grid<Product> grid = new Grid<>(Product.class, false);
+    private final int FILTER_TIMEOUT = 300;
+
+    private final Grid<ProductRow> grid = new Grid<>(ProductRow.class, false);
+    private final ProductRowFetchCallback fetchCallback;
+
+    private TextField searchField;
+    private ComboBox<CategoryRow> categoryFilter;
+    private BigDecimalField minPriceFilter;
+    private BigDecimalField maxPriceFilter;
+    private Button deleteSelected;
+    private Upload importUpload;
+    private ProgressBar importProgress;
+    private Span importStatus;
 
     private TextField nameProduct;
-    private TextField nameCategory;
-    private TextField priceProduct;
+    private ComboBox<CategoryRow> category;
+    private BigDecimalField priceProduct;
     private TextField soldProduct;
-    private TextField madeOn;
+    private DatePicker madeOn;
     private Upload thumbnailProduct;
     private Image thumbnailProductPreview;
 
@@ -61,9 +105,25 @@ public class ProductView extends Div implements BeforeEnterObserver {
     private Product product;
 
     private final ProductService productService;
-
-    public ProductView(ProductService productService) {
+    private final CategoryService categoryService;
+    private final ThumbnailService thumbnailService;
+    private final ProductImportService importService;
+    private final CsvExportService exportService;
+    private final DataChangeBroadcaster broadcaster;
+    private final ViewMetrics viewMetrics;
+    private Registration broadcasterRegistration;
+
+    public ProductView(ProductService productService, CategoryService categoryService,
+            ThumbnailService thumbnailService, ProductImportService importService, CsvExportService exportService,
+            DataChangeBroadcaster broadcaster, ViewMetrics viewMetrics) {
         this.productService = productService;
+        this.categoryService = categoryService;
+        this.thumbnailService = thumbnailService;
+        this.importService = importService;
+        this.exportService = exportService;
+        this.broadcaster = broadcaster;
+        this.viewMetrics = viewMetrics;
+        this.fetchCallback = new ProductRowFetchCallback(productService);
         addClassNames("product-view");
 
         // Create UI
@@ -80,36 +140,37 @@ public class ProductView extends Div implements BeforeEnterObserver {
         grid.addColumn("priceProduct").setAutoWidth(true);
         grid.addColumn("soldProduct").setAutoWidth(true);
         grid.addColumn("madeOn").setAutoWidth(true);
-        LitRenderer<Product> thumbnailProductRenderer = LitRenderer.<Product>of(
+        LitRenderer<ProductRow> thumbnailProductRenderer = LitRenderer.<ProductRow>of(
                 "<span style='border-radius: 50%; overflow: hidden; display: flex; align-items: center; justify-content: center; width: 64px; height: 64px'><img style='max-width: 100%' src=${item.thumbnailProduct} /></span>")
-                .withProperty("thumbnailProduct", item -> {
-                    if (item != null && item.getThumbnailProduct() != null) {
-                        return "data:image;base64," + Base64.getEncoder().encodeToString(item.getThumbnailProduct());
-                    } else {
-                        return "";
-                    }
-                });
+                .withProperty("thumbnailProduct", ThumbnailController::productThumbnailUrl);
         grid.addColumn(thumbnailProductRenderer).setHeader("Thumbnail Product").setWidth("96px").setFlexGrow(0);
 
-        grid.setItems(query -> productService.list(
-                PageRequest.of(query.getPage(), query.getPageSize(), VaadinSpringDataHelpers.toSpringDataSort(query)))
-                .stream());
+        // The grid cannot hold more than Integer.MAX_VALUE rows
+        grid.setItems(viewMetrics.metered("products", fetchCallback),
+                query -> (int) Math.min(productService.count(fetchCallback.getFilter()), Integer.MAX_VALUE));
+        grid.getDataProvider().addDataProviderListener(e -> fetchCallback.reset());
         grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
 
-        // when a row is selected or deselected, populate form
-        grid.asSingleSelect().addValueChangeListener(event -> {
-            if (event.getValue() != null) {
-                UI.getCurrent().navigate(String.format(PRODUCT_EDIT_ROUTE_TEMPLATE, event.getValue().getId()));
-            } else {
-                clearForm();
-                UI.getCurrent().navigate(ProductView.class);
-            }
+        // Rows are checked for bulk operations and clicked to be edited
+        grid.setSelectionMode(Grid.SelectionMode.MULTI);
+        grid.addSelectionListener(event -> {
+            int selected = event.getAllSelectedItems().size();
+            deleteSelected.setEnabled(selected > 0);
+            deleteSelected.setText(selected > 0 ? String.format("Delete %d selected", selected) : "Delete selected");
         });
+        grid.addItemClickListener(event -> UI.getCurrent()
+                .navigate(String.format(PRODUCT_EDIT_ROUTE_TEMPLATE, event.getItem().getId())));
 
         // Configure Form
         binder = new BeanValidationBinder<>(Product.class);
 
         // Bind fields. This is where you'd define e.g. validation rules
+        binder.forField(soldProduct).withNullRepresentation("")
+                .withConverter(new StringToLongConverter("Sold product must be a number")).bind("soldProduct");
+        binder.forField(category).withConverter(Converter.<CategoryRow, Category>from(
+                row -> Result.ok(row == null ? null : categoryService.getReference(row.getId())),
+                entity -> entity == null ? null : categoryService.getRow(entity.getId()).orElse(null)))
+                .bind("category");
 
         binder.bindInstanceFields(this);
 
@@ -192,17 +253,18 @@ public class ProductView extends Div implements BeforeEnterObserver {
 
         FormLayout formLayout = new FormLayout();
         nameProduct = new TextField("Name Product");
-        nameCategory = new TextField("Name Category");
-        priceProduct = new TextField("Price Product");
+        category = createCategoryComboBox();
+        category.setLabel("Category");
+        priceProduct = new BigDecimalField("Price Product");
         soldProduct = new TextField("Sold Product");
-        madeOn = new TextField("Made On");
+        madeOn = new DatePicker("Made On");
         Label thumbnailProductLabel = new Label("Thumbnail Product");
         thumbnailProductPreview = new Image();
         thumbnailProductPreview.setWidth("100%");
         thumbnailProduct = new Upload();
         thumbnailProduct.getStyle().set("box-sizing", "border-box");
         thumbnailProduct.getElement().appendChild(thumbnailProductPreview.getElement());
-        formLayout.add(nameProduct, nameCategory, priceProduct, soldProduct, madeOn, thumbnailProductLabel,
+        formLayout.add(nameProduct, category, priceProduct, soldProduct, madeOn, thumbnailProductLabel,
                 thumbnailProduct);
 
         editorDiv.add(formLayout);
@@ -225,34 +287,243 @@ public class ProductView extends Div implements BeforeEnterObserver {
         Div wrapper = new Div();
         wrapper.setClassName("grid-wrapper");
         splitLayout.addToPrimary(wrapper);
-        wrapper.add(grid);
+        wrapper.add(createFilterLayout(), grid);
+    }
+
+    private HorizontalLayout createFilterLayout() {
+        searchField = new TextField();
+        searchField.setPlaceholder("Search product or category");
+        searchField.setPrefixComponent(VaadinIcon.SEARCH.create());
+        searchField.setClearButtonVisible(true);
+        // Only query once the user stops typing
+        searchField.setValueChangeMode(ValueChangeMode.LAZY);
+        searchField.setValueChangeTimeout(FILTER_TIMEOUT);
+        searchField.addValueChangeListener(e -> applyFilter());
+
+        categoryFilter = createCategoryComboBox();
+        categoryFilter.setPlaceholder("Category");
+        categoryFilter.setClearButtonVisible(true);
+        categoryFilter.addValueChangeListener(e -> applyFilter());
+
+        minPriceFilter = createPriceFilter("Min price");
+        maxPriceFilter = createPriceFilter("Max price");
+
+        importUpload = createImportUpload();
+        importProgress = new ProgressBar();
+        importProgress.setIndeterminate(true);
+        importProgress.setWidth("8em");
+        importProgress.setVisible(false);
+        importStatus = new Span();
+
+        deleteSelected = new Button("Delete selected", VaadinIcon.TRASH.create(), e -> confirmDeleteSelected());
+        deleteSelected.setEnabled(false);
+
+        HorizontalLayout filterLayout = new HorizontalLayout(searchField, categoryFilter, minPriceFilter,
+                maxPriceFilter, deleteSelected, createExportLink(), importUpload, importProgress, importStatus);
+        filterLayout.setClassName("filter-layout");
+        return filterLayout;
+    }
+
+    private ComboBox<CategoryRow> createCategoryComboBox() {
+        ComboBox<CategoryRow> comboBox = new ComboBox<>();
+        comboBox.setItems(query -> categoryService
+                .listRowsByName(query.getFilter().orElse(""), PageRequest.of(query.getPage(), query.getPageSize()))
+                .stream());
+        comboBox.setItemLabelGenerator(CategoryRow::getNameCategory);
+        return comboBox;
+    }
+
+    private void confirmDeleteSelected() {
+        Set<ProductRow> selected = grid.getSelectedItems();
+        Dialog dialog = new Dialog();
+        dialog.setHeaderTitle(String.format("Delete %d products?", selected.size()));
+        Button confirm = new Button("Delete", e -> {
+            dialog.close();
+            deleteSelected(selected);
+        });
+        confirm.addThemeVariants(ButtonVariant.LUMO_PRIMARY, ButtonVariant.LUMO_ERROR);
+        dialog.getFooter().add(new Button("Cancel", e -> dialog.close()), confirm);
+        dialog.open();
+    }
+
+    private void deleteSelected(Set<ProductRow> selected) {
+        try {
+            productService.deleteAll(selected);
+            clearForm();
+            refreshGrid();
+            Notification.show(String.format("%d products deleted", selected.size()));
+            UI.getCurrent().navigate(ProductView.class);
+        } catch (ObjectOptimisticLockingFailureException exception) {
+            Notification n = Notification.show(
+                    "Error deleting the data. Somebody else has updated or deleted some of the records, nothing was deleted.");
+            n.setPosition(Position.MIDDLE);
+            n.addThemeVariants(NotificationVariant.LUMO_ERROR);
+            grid.getDataProvider().refreshAll();
+        }
+    }
+
+    private Anchor createExportLink() {
+        // Exports the products matching the filters at the time of the download
+        StreamResource resource = new StreamResource("products.csv",
+                (output, session) -> exportService.exportProducts(fetchCallback.getFilter(), output));
+        resource.setContentType("text/csv");
+        Anchor link = new Anchor(resource, "");
+        link.getElement().setAttribute("download", true);
+        link.add(new Button("Export CSV", VaadinIcon.DOWNLOAD.create()));
+        return link;
+    }
+
+    private Upload createImportUpload() {
+        TempFileReceiver receiver = new TempFileReceiver(importService.getMaxUploadSize());
+        Upload upload = new Upload(receiver);
+        upload.setAcceptedFileTypes(".csv", "text/csv");
+        upload.setMaxFileSize(importService.getMaxUploadSize());
+        upload.setDropAllowed(false);
+        upload.setUploadButton(new Button("Import CSV"));
+        upload.addFileRejectedListener(e -> Notification.show(e.getErrorMessage()));
+        upload.addFailedListener(e -> {
+            receiver.discard();
+            Notification.show("Failed to upload the file");
+        });
+        upload.addSucceededListener(e -> {
+            viewMetrics.recordUpload("csv", e.getContentLength());
+            upload.clearFileList();
+            InputStream input;
+            try {
+                input = receiver.getInputStream();
+            } catch (IOException exception) {
+                receiver.discard();
+                Notification.show("Failed to read the uploaded file");
+                return;
+            }
+            UI ui = UI.getCurrent();
+            showImportProgress(0);
+            // Runs in the background, progress is pushed to the browser
+            importService.importCsvAsync(input, result -> ui.access(() -> showImportProgress(result.getImported())))
+                    .whenComplete((result, error) -> {
+                        receiver.discard();
+                        ui.access(() -> showImportResult(result, error));
+                    });
+        });
+        return upload;
+    }
+
+    private void showImportProgress(int imported) {
+        importUpload.setVisible(false);
+        importProgress.setVisible(true);
+        importStatus.setText(String.format("Imported %d rows", imported));
+    }
+
+    private void showImportResult(ImportResult result, Throwable error) {
+        importUpload.setVisible(true);
+        importProgress.setVisible(false);
+        importStatus.setText("");
+        if (error != null) {
+            Notification n = Notification.show(
+                    "Import failed: " + NestedExceptionUtils.getMostSpecificCause(error).getMessage(), 10000,
+                    Position.MIDDLE);
+            n.addThemeVariants(NotificationVariant.LUMO_ERROR);
+            return;
+        }
+        StringBuilder message = new StringBuilder(String.format("Imported %d products", result.getImported()));
+        if (result.getFailed() > 0) {
+            message.append(String.format(", skipped %d invalid rows. ", result.getFailed()));
+            message.append(String.join("; ", result.getErrors().subList(0, Math.min(5, result.getErrors().size()))));
+        }
+        Notification.show(message.toString(), 10000, Position.BOTTOM_START);
+    }
+
+    private BigDecimalField createPriceFilter(String placeholder) {
+        BigDecimalField priceFilter = new BigDecimalField();
+        priceFilter.setPlaceholder(placeholder);
+        priceFilter.setClearButtonVisible(true);
+        priceFilter.setValueChangeMode(ValueChangeMode.LAZY);
+        priceFilter.setValueChangeTimeout(FILTER_TIMEOUT);
+        priceFilter.addValueChangeListener(e -> applyFilter());
+        return priceFilter;
+    }
+
+    private void applyFilter() {
+        Specification<Product> filter = null;
+        if (!searchField.getValue().isBlank()) {
+            filter = productService.searchFilter(searchField.getValue());
+        }
+        if (categoryFilter.getValue() != null) {
+            Specification<Product> category = ProductSpecifications.inCategory(categoryFilter.getValue().getId());
+            filter = filter == null ? category : filter.and(category);
+        }
+        if (!minPriceFilter.isEmpty() || !maxPriceFilter.isEmpty()) {
+            Specification<Product> price = ProductSpecifications.priceBetween(minPriceFilter.getValue(),
+                    maxPriceFilter.getValue());
+            filter = filter == null ? price : filter.and(price);
+        }
+        fetchCallback.setFilter(filter);
+        refreshGrid();
     }
 
     private void attachImageUpload(Upload upload, Image preview) {
-        ByteArrayOutputStream uploadBuffer = new ByteArrayOutputStream();
+        TempFileReceiver receiver = new TempFileReceiver(thumbnailService.getMaxUploadSize());
         upload.setAcceptedFileTypes("image/*");
-        upload.setReceiver((fileName, mimeType) -> {
-            uploadBuffer.reset();
-            return uploadBuffer;
+        upload.setMaxFileSize(thumbnailService.getMaxUploadSize());
+        upload.setReceiver(receiver);
+        upload.addFileRejectedListener(e -> Notification.show(e.getErrorMessage()));
+        upload.addFailedListener(e -> {
+            receiver.discard();
+            Notification.show("Failed to upload the image");
         });
         upload.addSucceededListener(e -> {
+            viewMetrics.recordUpload("image", e.getContentLength());
+            Thumbnails thumbnails;
+            try (InputStream input = receiver.getInputStream()) {
+                thumbnails = thumbnailService.createThumbnails(input);
+            } catch (IOException exception) {
+                upload.clearFileList();
+                Notification.show("The uploaded file is not a supported image");
+                return;
+            } finally {
+                receiver.discard();
+            }
             StreamResource resource = new StreamResource(e.getFileName(),
-                    () -> new ByteArrayInputStream(uploadBuffer.toByteArray()));
+                    () -> new ByteArrayInputStream(thumbnails.getLarge()));
             preview.setSrc(resource);
             preview.setVisible(true);
             if (this.product == null) {
                 this.product = new Product();
             }
-            this.product.setThumbnailProduct(uploadBuffer.toByteArray());
+            this.product.setThumbnailProduct(thumbnails.getLarge());
+            this.product.setThumbnailProductSmall(thumbnails.getSmall());
         });
         preview.setVisible(false);
     }
 
     private void refreshGrid() {
-        grid.select(null);
+        grid.deselectAll();
         grid.getDataProvider().refreshAll();
     }
 
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        UI ui = attachEvent.getUI();
+        broadcasterRegistration = broadcaster.register(Product.class,
+                changes -> ui.access(() -> refreshChangedRows(changes)));
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        broadcasterRegistration.remove();
+        broadcasterRegistration = null;
+    }
+
+    private void refreshChangedRows(Changes changes) {
+        // Keeps the selection, the user may be editing one of the rows
+        if (changes.isRefreshAll()) {
+            grid.getDataProvider().refreshAll();
+        } else {
+            changes.getIds().forEach(id -> productService.getRow(id)
+                    .ifPresent(row -> grid.getDataProvider().refreshItem(row)));
+        }
+    }
+
     private void clearForm() {
         populateForm(null);
     }
@@ -265,8 +536,7 @@ public class ProductView extends Div implements BeforeEnterObserver {
             this.thumbnailProduct.clearFileList();
             this.thumbnailProductPreview.setSrc("");
         } else {
-            this.thumbnailProductPreview
-                    .setSrc("data:image;base64," + Base64.getEncoder().encodeToString(value.getThumbnailProduct()));
+            this.thumbnailProductPreview.setSrc(ThumbnailController.productThumbnailUrl(value));
         }
 
     }
@@ -0,0 +1,154 @@
+package com.example.application.web;
+
+import com.example.application.data.entity.Category;
+import com.example.application.data.entity.Product;
+import com.example.application.data.service.CategoryRow;
+import com.example.application.data.service.CategoryService;
+import com.example.application.data.service.ProductRow;
+import com.example.application.data.service.ProductService;
+import com.example.application.data.service.ThumbnailService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Serves the thumbnail images of products and categories over plain HTTP.
+ * <p>
+ * Grids only emit the short URL built by {@link #productThumbnailUrl(ProductRow)}
+ * or {@link #categoryThumbnailUrl(CategoryRow)} instead of inlining the image as
+ * a base64 data URI. The URL contains the entity version, so a response can be
+ * cached by the browser for as long as the entity is not modified. Grids ask
+ * for the small variant of the thumbnail, everything else gets the large one.
+ */
+@RestController
+public class ThumbnailController {
+
+    static final String PRODUCT_PATH = "thumbnails/product/";
+    static final String CATEGORY_PATH = "thumbnails/category/";
+
+    private final ProductService productService;
+    private final CategoryService categoryService;
+
+    public ThumbnailController(ProductService productService, CategoryService categoryService) {
+        this.productService = productService;
+        this.categoryService = categoryService;
+    }
+
+    /**
+     * Returns the relative URL of the thumbnail of the given product, or an empty
+     * string if the product has no thumbnail.
+     */
+    public static String productThumbnailUrl(Product product) {
+        if (product == null || product.getThumbnailProduct() == null) {
+            return "";
+        }
+        return thumbnailUrl(PRODUCT_PATH, product.getId(), product.getVersion(), ThumbnailService.LARGE_SIZE);
+    }
+
+    /**
+     * Returns the relative URL of the thumbnail of the given product row, or an
+     * empty string if the product has no thumbnail.
+     */
+    public static String productThumbnailUrl(ProductRow row) {
+        if (row == null || !row.hasThumbnail()) {
+            return "";
+        }
+        return thumbnailUrl(PRODUCT_PATH, row.getId(), row.getVersion(), ThumbnailService.SMALL_SIZE);
+    }
+
+    /**
+     * Returns the relative URL of the thumbnail of the given category, or an empty
+     * string if the category has no thumbnail.
+     */
+    public static String categoryThumbnailUrl(Category category) {
+        if (category == null || category.getThumbnailSlug() == null) {
+            return "";
+        }
+        return thumbnailUrl(CATEGORY_PATH, category.getId(), category.getVersion(), ThumbnailService.LARGE_SIZE);
+    }
+
+    /**
+     * Returns the relative URL of the thumbnail of the given category row, or an
+     * empty string if the category has no thumbnail.
+     */
+    public static String categoryThumbnailUrl(CategoryRow row) {
+        if (row == null || !row.hasThumbnail()) {
+            return "";
+        }
+        return thumbnailUrl(CATEGORY_PATH, row.getId(), row.getVersion(), ThumbnailService.SMALL_SIZE);
+    }
+
+    private static String thumbnailUrl(String path, Long id, int version, int size) {
+        return path + id + "?v=" + version + "&size=" + size;
+    }
+
+    @GetMapping("/" + PRODUCT_PATH + "{id}")
+    public ResponseEntity<byte[]> productThumbnail(@PathVariable Long id,
+            @RequestParam(name = "v", required = false) Integer version,
+            @RequestParam(name = "size", defaultValue = "" + ThumbnailService.LARGE_SIZE) int size,
+            WebRequest request) {
+        Function<Long, Optional<byte[]>> image = size <= ThumbnailService.SMALL_SIZE
+                ? productService::getSmallThumbnail
+                : productService::getThumbnail;
+        return thumbnail("product-" + size, id, productService.getVersion(id), image, version, request);
+    }
+
+    @GetMapping("/" + CATEGORY_PATH + "{id}")
+    public ResponseEntity<byte[]> categoryThumbnail(@PathVariable Long id,
+            @RequestParam(name = "v", required = false) Integer version,
+            @RequestParam(name = "size", defaultValue = "" + ThumbnailService.LARGE_SIZE) int size,
+            WebRequest request) {
+        Function<Long, Optional<byte[]>> image = size <= ThumbnailService.SMALL_SIZE
+                ? categoryService::getSmallThumbnail
+                : categoryService::getThumbnail;
+        return thumbnail("category-" + size, id, categoryService.getVersion(id), image, version, request);
+    }
+
+    private ResponseEntity<byte[]> thumbnail(String type, Long id, Optional<Integer> currentVersion,
+            Function<Long, Optional<byte[]>> image, Integer requestedVersion, WebRequest request) {
+        if (currentVersion.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Only the version is needed to answer a conditional request, the image
+        // itself is read when it actually has to be sent
+        int version = currentVersion.get();
+        String etag = "\"" + type + "-" + id + "-" + version + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        Optional<byte[]> bytes = image.apply(id);
+        if (bytes.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // A URL pointing at the current version never changes its content, older
+        // or unversioned URLs have to be revalidated
+        CacheControl cacheControl = requestedVersion != null && requestedVersion == version
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate()
+                : CacheControl.noCache().cachePrivate();
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).contentType(contentType(bytes.get()))
+                .body(bytes.get());
+    }
+
+    private static MediaType contentType(byte[] bytes) {
+        try {
+            String guessed = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(bytes));
+            if (guessed != null) {
+                return MediaType.parseMediaType(guessed);
+            }
+        } catch (IOException e) {
+            // Fall through to the generic type
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+}
@@ -1,2 +0,0 @@
-insert into product(version, id,name_product,name_category,price_product,sold_product,made_on,thumbnail_product) values (1, 1,'Cheat Spread','jigrormo','jigrormo','jigrormo','jigrormo','https://images.unsplash.com/photo-1568967729548-e3dbad3d37e0?w=300')
-insert into category(version, id,name_category,slug_product,total_product,thumbnail_slug) values (1, 1,'jigrormo','jigrormo','jigrormo','https://images.unsplash.com/photo-1568967729548-e3dbad3d37e0?w=300')
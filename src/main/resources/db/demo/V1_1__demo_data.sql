@@ -0,0 +1,3 @@
+insert into category(version, id,name_category,slug_product,total_product,thumbnail_slug) values (1, 1,'jigrormo','jigrormo',0,'https://images.unsplash.com/photo-1568967729548-e3dbad3d37e0?w=300');
+insert into product(version, id,name_product,category_id,price_product,sold_product,made_on,thumbnail_product) values (1, 1,'Cheat Spread',(select id from category where name_category = 'jigrormo'),12.50,120,'2022-11-01','https://images.unsplash.com/photo-1568967729548-e3dbad3d37e0?w=300');
+update category set total_product = (select count(*) from product where product.category_id = category.id);
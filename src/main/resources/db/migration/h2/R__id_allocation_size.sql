@@ -0,0 +1,11 @@
+-- The increment of the id sequences must match id.allocation-size, Hibernate
+-- refuses to start otherwise. Flyway runs this again whenever the setting
+-- changes.
+alter sequence category_seq increment by ${id_allocation_size};
+alter sequence product_seq increment by ${id_allocation_size};
+
+-- H2 still returns the value it had prepared with the old increment next. It
+-- is drawn here, so that the first block of the new size starts above every id
+-- handed out with the old size.
+select next value for category_seq;
+select next value for product_seq;
@@ -0,0 +1,35 @@
+-- Ids come from a sequence per entity, see PooledSequenceGenerator. The
+-- increment must match id.allocation-size, Hibernate refuses to start otherwise.
+create sequence category_seq start with 1000 increment by 50;
+create sequence product_seq start with 1000 increment by 50;
+
+create table category (
+    id bigint not null,
+    version integer not null,
+    name_category varchar(255),
+    slug_product varchar(255),
+    thumbnail_slug blob,
+    thumbnail_slug_small blob,
+    total_product bigint not null,
+    primary key (id)
+);
+
+create table product (
+    id bigint not null,
+    version integer not null,
+    made_on date,
+    name_product varchar(255),
+    price_product numeric(19, 2),
+    sold_product bigint,
+    thumbnail_product blob,
+    thumbnail_product_small blob,
+    category_id bigint,
+    primary key (id),
+    constraint fk_product_category foreign key (category_id) references category (id)
+);
+
+create index idx_category_name_category on category (name_category);
+create index idx_product_name_product on product (name_product);
+create index idx_product_category on product (category_id);
+create index idx_product_price_product on product (price_product);
+create index idx_product_made_on on product (made_on);
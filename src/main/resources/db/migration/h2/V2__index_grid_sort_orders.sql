@@ -0,0 +1,15 @@
+-- The grids sort by a column with nulls first and break ties by id, so an index
+-- serves a sort only if it holds the column followed by the id. H2 cannot read
+-- an index backwards, so descending sorts get an index of their own.
+drop index idx_product_name_product;
+drop index idx_product_price_product;
+drop index idx_product_made_on;
+
+create index idx_product_name_product on product (name_product, id);
+create index idx_product_name_product_desc on product (name_product desc nulls first, id);
+create index idx_product_price_product on product (price_product, id);
+create index idx_product_price_product_desc on product (price_product desc nulls first, id);
+create index idx_product_made_on on product (made_on, id);
+create index idx_product_made_on_desc on product (made_on desc nulls first, id);
+
+create index idx_category_name_category_desc on category (name_category desc nulls first);
@@ -0,0 +1,61 @@
+package com.example.application.components.upload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TempFileReceiverTest {
+
+    private final TempFileReceiver receiver = new TempFileReceiver(10);
+
+    @AfterEach
+    void discard() {
+        receiver.discard();
+    }
+
+    @Test
+    void uploadCanBeReadBack() throws IOException {
+        upload("0123456789");
+        assertThat(read()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void uploadOverTheLimitFails() throws IOException {
+        try (OutputStream output = receiver.receiveUpload("big.png", "image/png")) {
+            output.write("0123456789".getBytes());
+            assertThatThrownBy(() -> output.write('x')).isInstanceOf(IOException.class)
+                    .hasMessageContaining("maximum size");
+        }
+    }
+
+    @Test
+    void latestUploadReplacesThePreviousOne() throws IOException {
+        upload("first");
+        upload("second");
+        assertThat(read()).isEqualTo("second");
+    }
+
+    @Test
+    void discardedUploadCannotBeRead() throws IOException {
+        upload("content");
+        receiver.discard();
+        assertThatThrownBy(receiver::getInputStream).isInstanceOf(IOException.class);
+    }
+
+    private void upload(String content) throws IOException {
+        try (OutputStream output = receiver.receiveUpload("file.txt", "text/plain")) {
+            output.write(content.getBytes());
+        }
+    }
+
+    private String read() throws IOException {
+        try (InputStream input = receiver.getInputStream()) {
+            return new String(input.readAllBytes());
+        }
+    }
+}
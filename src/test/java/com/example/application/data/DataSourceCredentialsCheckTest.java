@@ -0,0 +1,46 @@
+package com.example.application.data;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class DataSourceCredentialsCheckTest {
+
+    @Test
+    void credentialsFromTheJdbcVariablesPass() {
+        MockEnvironment environment = prodEnvironment().withProperty("JDBC_USERNAME", "catalog")
+                .withProperty("JDBC_PASSWORD", "secret");
+        assertThatCode(() -> check(environment)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void credentialsSetDirectlyPass() {
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.datasource.username", "catalog")
+                .withProperty("spring.datasource.password", "secret");
+        assertThatCode(() -> check(environment)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void missingCredentialsFail() {
+        assertThatThrownBy(() -> check(prodEnvironment())).isInstanceOf(IllegalStateException.class);
+        MockEnvironment withoutPassword = prodEnvironment().withProperty("JDBC_USERNAME", "catalog");
+        assertThatThrownBy(() -> check(withoutPassword)).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Returns an environment with the datasource properties of the prod
+     * profile.
+     */
+    private static MockEnvironment prodEnvironment() {
+        return new MockEnvironment().withProperty("spring.datasource.username", "${JDBC_USERNAME}")
+                .withProperty("spring.datasource.password", "${JDBC_PASSWORD}");
+    }
+
+    private static void check(MockEnvironment environment) {
+        DataSourceCredentialsCheck check = new DataSourceCredentialsCheck();
+        check.setEnvironment(environment);
+        check.postProcessBeanFactory(null);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.application.data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Asserts that a piece of work, such as opening a product for editing, runs no
+ * more than a budget of SQL statements counted by {@link StatementCounter}:
+ *
+ * <pre>
+ * Product product = StatementBudget.assertWithin(2, () -&gt; productService.get(id).orElseThrow());
+ * </pre>
+ *
+ * Only the statements prepared on the calling thread count, so the work must
+ * not hand its queries to other threads. An exceeded budget fails with an
+ * {@link AssertionError} that lists the statements and those that were
+ * repeated.
+ */
+public final class StatementBudget {
+
+    private StatementBudget() {
+    }
+
+    /**
+     * Runs the given work and fails if it runs more than the given number of
+     * statements.
+     */
+    public static void assertWithin(int maxStatements, Runnable work) {
+        assertWithin(maxStatements, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given work, fails if it runs more than the given number of
+     * statements and otherwise returns its result.
+     */
+    public static <T> T assertWithin(int maxStatements, Supplier<T> work) {
+        T result;
+        List<String> statements;
+        try (StatementCounter.Recording recording = StatementCounter.record()) {
+            result = work.get();
+            statements = recording.stop();
+        }
+        if (statements.size() > maxStatements) {
+            throw new AssertionError(message(maxStatements, statements));
+        }
+        return result;
+    }
+
+    private static String message(int maxStatements, List<String> statements) {
+        StringBuilder message = new StringBuilder("Expected at most ").append(maxStatements)
+                .append(" SQL statements but ran ").append(statements.size()).append(':');
+        statements.forEach(sql -> message.append("\n  ").append(sql));
+        Map<String, Long> repeated = StatementCounter.repeated(statements);
+        if (!repeated.isEmpty()) {
+            message.append("\nRepeated statements:");
+            repeated.forEach((sql, count) -> message.append("\n  ").append(count).append("x ").append(sql));
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.application.data.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.application.Application;
+import com.example.application.data.StatementCounter;
+import com.example.application.data.service.ProductService;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+class PooledSequenceGeneratorTest {
+
+    private static final int PRODUCTS = 200;
+
+    @Test
+    void pooledIdsTakeFewerSequenceCalls() {
+        Statements pooled = createProducts(50);
+        Statements unpooled = createProducts(1);
+
+        assertThat(unpooled.sequenceCalls).isEqualTo(PRODUCTS);
+        // One call per block of 50, plus one to start
+        assertThat(pooled.sequenceCalls).isLessThanOrEqualTo(PRODUCTS / 50 + 1);
+        assertThat(pooled.sequenceCalls).isLessThan(unpooled.sequenceCalls);
+        // The inserts are prepared and batched the same way with either size
+        assertThat(pooled.inserts).isPositive().isEqualTo(unpooled.inserts);
+    }
+
+    /**
+     * Inserts {@link #PRODUCTS} products through {@link ProductService#createAll}
+     * in a fresh application with the given allocation size and counts the
+     * statements it takes.
+     */
+    private static Statements createProducts(int allocationSize) {
+        // Each context gets a database of its own
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.autoconfigure.exclude=com.vaadin.flow.spring.SpringBootAutoConfiguration")
+                .run("--id.allocation-size=" + allocationSize, "--id.optimizer=pooled")) {
+            ProductService productService = context.getBean(ProductService.class);
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < PRODUCTS; i++) {
+                Product product = new Product();
+                product.setNameProduct("Pooled " + i);
+                products.add(product);
+            }
+            List<String> statements;
+            try (StatementCounter.Recording recording = StatementCounter.record()) {
+                productService.createAll(products);
+                statements = recording.stop();
+            }
+            Statements counted = new Statements();
+            for (String sql : statements) {
+                String lower = sql.toLowerCase();
+                if (lower.contains("next value for product_seq")) {
+                    counted.sequenceCalls++;
+                } else if (lower.startsWith("insert into product")) {
+                    counted.inserts++;
+                }
+            }
+            return counted;
+        }
+    }
+
+    private static class Statements {
+
+        private int sequenceCalls;
+        private int inserts;
+    }
+}
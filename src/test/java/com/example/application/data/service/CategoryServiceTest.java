@@ -0,0 +1,98 @@
+package com.example.application.data.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.application.data.entity.Category;
+import com.example.application.data.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+class CategoryServiceTest {
+
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long categoryId;
+    private Long productId;
+
+    @BeforeEach
+    void createCategoryWithProduct() {
+        Category category = new Category();
+        category.setNameCategory("Tamarind");
+        category.setSlugProduct("tamarind");
+        categoryId = categoryService.update(category).getId();
+        Product product = new Product();
+        product.setNameProduct("Paste");
+        product.setCategory(categoryService.get(categoryId).orElseThrow());
+        productId = productService.update(product).getId();
+    }
+
+    @Test
+    void renameIsSearchableOnceCommitted() {
+        Category category = categoryService.get(categoryId).orElseThrow();
+        category.setNameCategory("Sorrel");
+        categoryService.update(category);
+
+        assertThat(searchIndex.search("sorrel", 10)).containsExactly(productId);
+        assertThat(productService.getRow(productId).orElseThrow().getNameCategory()).isEqualTo("Sorrel");
+    }
+
+    @Test
+    void renameWithinALongerTransactionIsSearchableOnceCommitted() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Category category = categoryService.get(categoryId).orElseThrow();
+            category.setNameCategory("Kumquat");
+            categoryService.update(category);
+        });
+
+        assertThat(searchIndex.search("kumquat", 10)).containsExactly(productId);
+    }
+
+    @Test
+    void rolledBackRenameLeavesTheSearchIndexAsItWas() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Category category = categoryService.get(categoryId).orElseThrow();
+            category.setNameCategory("Yuzu");
+            categoryService.update(category);
+            status.setRollbackOnly();
+        });
+
+        assertThat(searchIndex.search("yuzu", 10)).isEmpty();
+        assertThat(searchIndex.search("tamarind", 10)).contains(productId);
+    }
+
+    @Test
+    void rolledBackInsertIsNotCounted() {
+        long count = categoryService.count();
+        transactionTemplate.executeWithoutResult(status -> {
+            Category category = new Category();
+            category.setNameCategory("Uncounted");
+            category.setSlugProduct("uncounted");
+            categoryService.update(category);
+            status.setRollbackOnly();
+        });
+
+        assertThat(categoryService.count()).isEqualTo(count);
+    }
+
+    @Test
+    void smallThumbnailFallsBackToTheThumbnail() {
+        Category category = categoryService.get(categoryId).orElseThrow();
+        category.setThumbnailSlug(new byte[] { 1, 2, 3 });
+        categoryService.update(category);
+
+        assertThat(categoryService.getThumbnail(categoryId)).contains(new byte[] { 1, 2, 3 });
+        assertThat(categoryService.getSmallThumbnail(categoryId)).contains(new byte[] { 1, 2, 3 });
+        assertThat(categoryService.getThumbnail(-1L)).isEmpty();
+    }
+}
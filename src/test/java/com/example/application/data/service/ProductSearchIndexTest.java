@@ -0,0 +1,93 @@
+package com.example.application.data.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new ProductSearchIndex();
+        index.put(1L, "Cheat Spread", "Breakfast");
+        index.put(2L, "Chocolate Spread", "Breakfast");
+        index.put(3L, "Cheddar Cheese", "Dairy");
+        index.put(4L, "Peanut Butter", "Breakfast");
+    }
+
+    @Test
+    void tokenizeSplitsOnNonLetters() {
+        assertThat(ProductSearchIndex.tokenize("Crème-Brûlée, 2 PACK")).containsExactly("crème", "brûlée", "2",
+                "pack");
+        assertThat(ProductSearchIndex.tokenize("  ")).isEmpty();
+        assertThat(ProductSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void prefixMatchesWordsStartingWithIt() {
+        assertThat(index.search("che", 10)).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(index.search("SPR", 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("dairy", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void exactMatchesRankBeforePrefixMatches() {
+        index.put(5L, "Cheat", "Snacks");
+        assertThat(index.search("cheat", 10)).startsWith(1L, 5L);
+        index.put(6L, "Cheats", "Snacks");
+        assertThat(index.search("cheat", 10)).containsExactly(1L, 5L, 6L);
+    }
+
+    @Test
+    void typoMatchesWordsOneEditAway() {
+        // Replaced, missing and extra character
+        assertThat(index.search("chedder", 10)).containsExactly(3L);
+        assertThat(index.search("peant", 10)).containsExactly(4L);
+        assertThat(index.search("buttter", 10)).containsExactly(4L);
+        // Typo in a word that is still being typed
+        assertThat(index.search("chocl", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void typosAreNotLookedForInShortWordsOrTheFirstCharacter() {
+        assertThat(index.search("chx", 10)).isEmpty();
+        assertThat(index.search("xheddar", 10)).isEmpty();
+    }
+
+    @Test
+    void multipleWordsMustAllMatch() {
+        assertThat(index.search("spread breakfast", 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("choc spr", 10)).containsExactly(2L);
+        assertThat(index.search("spread dairy", 10)).isEmpty();
+        // A typo in one of the words
+        assertThat(index.search("sprad chocolate", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void putReplacesAndRemoveDropsTheIndexedTexts() {
+        index.put(3L, "Gouda", "Dairy");
+        assertThat(index.search("cheddar", 10)).isEmpty();
+        assertThat(index.search("gouda", 10)).containsExactly(3L);
+        index.remove(3L);
+        assertThat(index.search("dairy", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void searchReturnsAtMostTheLimit() {
+        assertThat(index.search("breakfast", 2)).hasSize(2);
+    }
+
+    @Test
+    void isOneEditAway() {
+        assertThat(ProductSearchIndex.isOneEditAway("cheese", "cheese")).isTrue();
+        assertThat(ProductSearchIndex.isOneEditAway("cheese", "chese")).isTrue();
+        assertThat(ProductSearchIndex.isOneEditAway("cheese", "cheeses")).isTrue();
+        assertThat(ProductSearchIndex.isOneEditAway("cheese", "chease")).isTrue();
+        assertThat(ProductSearchIndex.isOneEditAway("cheese", "chase")).isFalse();
+        assertThat(ProductSearchIndex.isOneEditAway("cheese", "cheesecake")).isFalse();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.application.data.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.application.data.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void searchIndexIsUpdatedOnCommit() {
+        Product product = new Product();
+        product.setNameProduct("Committed Marmalade");
+        Long id = productService.update(product).getId();
+        assertThat(searchIndex.search("marmalade", 10)).containsExactly(id);
+    }
+
+    @Test
+    void searchIndexKeepsItsTextsWhenTheUpdateRollsBack() {
+        Product product = new Product();
+        product.setNameProduct("Quince Jelly");
+        Long id = productService.update(product).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Product changed = productService.get(id).orElseThrow();
+            changed.setNameProduct("Rhubarb Jelly");
+            productService.update(changed);
+            status.setRollbackOnly();
+        });
+
+        assertThat(searchIndex.search("rhubarb", 10)).isEmpty();
+        assertThat(searchIndex.search("quince", 10)).containsExactly(id);
+    }
+
+    @Test
+    void rowsAfterARowDependOnItsSortValues() {
+        Sort byName = Sort.by("nameProduct");
+        ProductRow first = productService.listRowsAfter(null, byName, 1).get(0);
+        assertThat(productService.listRowsAfter(first, byName, 3)).isNotEmpty();
+
+        // The same product as it could have been read before a rename
+        ProductRow renamed = new ProductRow(first.getId(), first.getVersion(), "\uffff", first.getNameCategory(),
+                first.getPriceProduct(), first.getSoldProduct(), first.getMadeOn(), first.hasThumbnail());
+        assertThat(productService.listRowsAfter(renamed, byName, 3)).isEmpty();
+    }
+}
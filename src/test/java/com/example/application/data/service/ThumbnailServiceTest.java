@@ -0,0 +1,69 @@
+package com.example.application.data.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.application.data.service.ThumbnailService.Thumbnails;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+class ThumbnailServiceTest {
+
+    private final ThumbnailService thumbnailService = new ThumbnailService(10485760, 50000000);
+
+    @Test
+    void wideImageIsSubsampledByItsWidth() throws IOException {
+        BufferedImage decoded = thumbnailService.decode(png(20000, 300));
+        assertThat(decoded.getWidth()).isLessThanOrEqualTo(4 * ThumbnailService.LARGE_SIZE);
+
+        Thumbnails thumbnails = thumbnailService.createThumbnails(png(20000, 300));
+        assertThat(read(thumbnails.getLarge()).getWidth()).isEqualTo(ThumbnailService.LARGE_SIZE);
+        assertThat(read(thumbnails.getSmall()).getWidth()).isEqualTo(ThumbnailService.SMALL_SIZE);
+    }
+
+    @Test
+    void tallImageIsSubsampledByItsHeight() throws IOException {
+        BufferedImage decoded = thumbnailService.decode(png(300, 20000));
+        assertThat(decoded.getHeight()).isLessThanOrEqualTo(4 * ThumbnailService.LARGE_SIZE);
+
+        Thumbnails thumbnails = thumbnailService.createThumbnails(png(300, 20000));
+        assertThat(read(thumbnails.getLarge()).getHeight()).isEqualTo(ThumbnailService.LARGE_SIZE);
+        assertThat(read(thumbnails.getSmall()).getHeight()).isEqualTo(ThumbnailService.SMALL_SIZE);
+    }
+
+    @Test
+    void smallImageIsNotEnlarged() throws IOException {
+        Thumbnails thumbnails = thumbnailService.createThumbnails(png(100, 50));
+        BufferedImage large = read(thumbnails.getLarge());
+        assertThat(large.getWidth()).isEqualTo(100);
+        assertThat(large.getHeight()).isEqualTo(50);
+    }
+
+    @Test
+    void imageWithTooManyPixelsIsRejected() {
+        ThumbnailService limited = new ThumbnailService(10485760, 1000 * 1000);
+        assertThatThrownBy(() -> limited.createThumbnails(png(1001, 1000))).isInstanceOf(IOException.class)
+                .hasMessageContaining("too large");
+    }
+
+    @Test
+    void unsupportedFormatIsRejected() {
+        assertThatThrownBy(() -> thumbnailService.createThumbnails(new ByteArrayInputStream(new byte[] { 1, 2, 3 })))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static InputStream png(int width, int height) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+        return new ByteArrayInputStream(output.toByteArray());
+    }
+
+    private static BufferedImage read(byte[] image) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(image));
+    }
+}
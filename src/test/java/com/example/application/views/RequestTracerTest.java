@@ -0,0 +1,52 @@
+package com.example.application.views;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import javax.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+class RequestTracerTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestTracer tracer = new RequestTracer(registry, Duration.ofSeconds(1), 50,
+            DataSize.ofKilobytes(256), false);
+
+    @Test
+    void bytesWrittenToTheStreamAreCounted() throws Exception {
+        MockHttpServletResponse response = trace((request, servletResponse) -> servletResponse.getOutputStream()
+                .write("{\"changes\":[]}".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getContentAsString()).isEqualTo("{\"changes\":[]}");
+        assertThat(recordedBytes()).isEqualTo(14);
+    }
+
+    @Test
+    void charactersWrittenToTheWriterAreCountedAsEncoded() throws Exception {
+        MockHttpServletResponse response = trace((request, servletResponse) -> {
+            servletResponse.setCharacterEncoding("UTF-8");
+            servletResponse.getWriter().write("Crème brûlée");
+        });
+
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("Crème brûlée");
+        assertThat(recordedBytes()).isEqualTo(15);
+    }
+
+    private MockHttpServletResponse trace(FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+        request.setQueryString("v-r=uidl&v-uiId=0");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        tracer.doFilter(request, response, chain);
+        return response;
+    }
+
+    private double recordedBytes() {
+        return registry.get("vaadin.response.size").summary().totalAmount();
+    }
+}
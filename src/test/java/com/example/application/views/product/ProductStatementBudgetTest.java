@@ -0,0 +1,93 @@
+package com.example.application.views.product;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.application.data.StatementBudget;
+import com.example.application.data.entity.Category;
+import com.example.application.data.entity.Product;
+import com.example.application.data.service.CategoryService;
+import com.example.application.data.service.ProductRow;
+import com.example.application.data.service.ProductService;
+import com.example.application.data.service.ProductSpecifications;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Asserts the number of SQL statements that the product view runs to fill the
+ * grid and to edit a product, so that a query per row or a lost cache shows up
+ * as a failure.
+ */
+@SpringBootTest
+class ProductStatementBudgetTest {
+
+    private static final int PRODUCTS = 200;
+    private static final int PAGE_SIZE = 50;
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private CategoryService categoryService;
+
+    private Category category;
+    private List<Product> products;
+
+    @BeforeEach
+    void createProducts() {
+        category = new Category();
+        category.setNameCategory("Budget " + System.nanoTime());
+        category.setSlugProduct("budget");
+        category = categoryService.update(category);
+        List<Product> newProducts = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setNameProduct("Budget " + i);
+            product.setPriceProduct(BigDecimal.valueOf(i));
+            product.setCategory(category);
+            newProducts.add(product);
+        }
+        products = productService.createAll(newProducts);
+    }
+
+    @Test
+    void gridFetchesRunOneStatementEach() {
+        ProductRowFetchCallback fetchCallback = new ProductRowFetchCallback(productService);
+        fetchCallback.setFilter(ProductSpecifications.inCategory(category.getId()));
+        List<QuerySortOrder> byPrice = QuerySortOrder.desc("priceProduct").build();
+
+        List<ProductRow> first = StatementBudget.assertWithin(1, () -> fetch(fetchCallback, 0, byPrice));
+        assertThat(first).hasSize(PAGE_SIZE);
+        // Scrolling on continues from the last row
+        List<ProductRow> next = StatementBudget.assertWithin(1, () -> fetch(fetchCallback, PAGE_SIZE, byPrice));
+        assertThat(next.get(0).getPriceProduct()).isLessThan(first.get(PAGE_SIZE - 1).getPriceProduct());
+        // Jumping ahead fetches by offset
+        List<ProductRow> last = StatementBudget.assertWithin(1, () -> fetch(fetchCallback, 150, byPrice));
+        assertThat(last).hasSize(PRODUCTS - 150);
+
+        ProductRowFetchCallback unfiltered = new ProductRowFetchCallback(productService);
+        StatementBudget.assertWithin(1, () -> fetch(unfiltered, 0, QuerySortOrder.asc("nameProduct").build()));
+    }
+
+    @Test
+    void editingAndSavingAProductStaysWithinBudget() {
+        Long id = products.get(0).getId();
+        Product product = StatementBudget.assertWithin(1, () -> productService.get(id).orElseThrow());
+        product.setNameProduct("Budget edited");
+        product.setPriceProduct(BigDecimal.TEN);
+        // The old category, the update and the row for the search index
+        StatementBudget.assertWithin(3, () -> productService.update(product));
+    }
+
+    private static List<ProductRow> fetch(ProductRowFetchCallback fetchCallback, int offset,
+            List<QuerySortOrder> sortOrders) {
+        return fetchCallback.fetch(new Query<>(offset, PAGE_SIZE, sortOrders, null, null))
+                .collect(Collectors.toList());
+    }
+}